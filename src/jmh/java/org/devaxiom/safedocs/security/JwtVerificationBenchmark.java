@@ -0,0 +1,91 @@
+package org.devaxiom.safedocs.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access-token verification as done per request: the previous path (a parser built per call, DEFLATE-compressed
+ * tokens) against the pre-built parser with compressed and uncompressed tokens, and a verified-token cache hit.
+ * Run with {@code ./gradlew jmh}; compare ops/us and gc.alloc.rate.norm.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "MCsAzvFBHnAv0CWIZonhazMPmT2kkrTSQ8JOVHSRnI8Xo8hdrnRcTQkI6ux3JNJx";
+
+    private SecretKey key;
+    private JwtService uncached;
+    private JwtService cached;
+    private String compressedToken;
+    private String plainToken;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+
+        UserDetailsImpl user = new UserDetailsImpl(42L, "bench@example.com", null, null, true, false, 3L);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+
+        compressedToken = service(true, 0).generateJwtToken();
+        uncached = service(false, 0);
+        plainToken = uncached.generateJwtToken();
+        cached = service(false, 10_000);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Claims legacyParserPerCallCompressed() {
+        Claims claims = Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(compressedToken)
+                .getPayload();
+        if (!JwtConfig.TOKEN_TYPE_ACCESS.equals(claims.get(JwtConfig.TOKEN_TYPE, String.class))) {
+            throw new IllegalStateException();
+        }
+        return claims;
+    }
+
+    @Benchmark
+    public Claims prebuiltParserCompressed() {
+        return uncached.validate(compressedToken, JwtConfig.TOKEN_TYPE_ACCESS);
+    }
+
+    @Benchmark
+    public Claims prebuiltParserUncompressed() {
+        return uncached.validate(plainToken, JwtConfig.TOKEN_TYPE_ACCESS);
+    }
+
+    @Benchmark
+    public Claims verifiedCacheHit() {
+        return cached.validate(plainToken, JwtConfig.TOKEN_TYPE_ACCESS);
+    }
+
+    private static JwtService service(boolean compress, long cacheSize) {
+        JwtConfig config = new JwtConfig();
+        config.setSecret(SECRET);
+        config.setIssuer("bench");
+        config.setCompressTokens(compress);
+        config.setVerifiedCacheSize(cacheSize);
+        JwtService service = new JwtService(config);
+        service.init();
+        return service;
+    }
+}
@@ -1,60 +1,72 @@
 package org.devaxiom.safedocs.config;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.devaxiom.safedocs.model.User;
-import org.devaxiom.safedocs.service.PrincipleUserService;
+import org.devaxiom.safedocs.security.UserDetailsImpl;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.lang.NonNull;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Optional;
 
+/**
+ * Supplies created_by / last_modified_by. Runs for every insert and update, so the auditor reference is resolved
+ * once per transaction and reused for the rest of it (bulk saves hit the memo). Writers without an authenticated
+ * user (jobs, startup) get an empty auditor straight away.
+ */
 @Component
 @EnableJpaAuditing
 @RequiredArgsConstructor
-@Slf4j
 public class ActorAuditAware implements AuditorAware<User> {
 
-    private final PrincipleUserService principleUserService;
     private final EntityManager em;
+    private final EntityManagerFactory emf;
 
     @Override
     @NonNull
     public Optional<User> getCurrentAuditor() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth == null || !auth.isAuthenticated()) {
-            log.info("[Audit] no authenticated user in SecurityContext");
-            return Optional.empty();
+        Long userId = currentUserId();
+        if (userId == null) return Optional.empty();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Optional.of(em.getReference(User.class, userId));
+        }
+
+        // The reference belongs to the transaction's persistence context; a REQUIRES_NEW transaction binds a
+        // different one, and the principal can change mid-transaction (login), so both are part of the memo key.
+        Object persistenceContext = TransactionSynchronizationManager.getResource(emf);
+        Auditor memo = (Auditor) TransactionSynchronizationManager.getResource(this);
+        if (memo != null && memo.userId().equals(userId) && memo.persistenceContext() == persistenceContext) {
+            return memo.user();
         }
 
-        try {
-            Optional<User> currentUser = principleUserService.getCurrentUser();
-            if (currentUser.isEmpty()) {
-                log.info("[Audit] could not resolve current user");
-                return Optional.empty();
-            }
-
-            Long effectiveUserId = currentUser.map(User::getUserId).orElse(null);
-            if (effectiveUserId == null) {
-                log.info("[Audit] could not resolve effective user id");
-                return Optional.empty();
-            }
-
-            return Optional.of(em.getReference(User.class, effectiveUserId));
-
-        } catch (AuthenticationException ex) {
-            log.info("[Audit] No authenticated user found for auditing: {}", ex.getMessage());
-            return Optional.empty();
-        } catch (Exception ex) {
-            log.info("[Audit] failed to resolve current auditor: {}", ex.getMessage());
-            return Optional.empty();
+        Optional<User> user = Optional.of(em.getReference(User.class, userId));
+        if (memo == null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ActorAuditAware.this);
+                }
+            });
+        } else {
+            TransactionSynchronizationManager.unbindResource(this);
         }
+        TransactionSynchronizationManager.bindResource(this, new Auditor(userId, persistenceContext, user));
+        return user;
     }
 
-}
\ No newline at end of file
+    private static Long currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) return null;
+        return auth.getPrincipal() instanceof UserDetailsImpl details ? details.getId() : null;
+    }
+
+    private record Auditor(Long userId, Object persistenceContext, Optional<User> user) {
+    }
+}
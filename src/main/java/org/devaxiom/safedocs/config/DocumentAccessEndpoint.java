@@ -0,0 +1,29 @@
+package org.devaxiom.safedocs.config;
+
+import lombok.RequiredArgsConstructor;
+import org.devaxiom.safedocs.service.DocumentAccessService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * On-demand check of document_access against its source rows: GET reports drift, POST also rebuilds the table.
+ */
+@Component
+@Endpoint(id = "documentaccess")
+@RequiredArgsConstructor
+public class DocumentAccessEndpoint {
+
+    private final DocumentAccessService documentAccessService;
+
+    @ReadOperation
+    public DocumentAccessService.VerificationReport verify() {
+        return documentAccessService.verify(false);
+    }
+
+    @WriteOperation
+    public DocumentAccessService.VerificationReport repair() {
+        return documentAccessService.verify(true);
+    }
+}
@@ -0,0 +1,21 @@
+package org.devaxiom.safedocs.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "safedocs.cache.document-list")
+@Getter
+@Setter
+public class DocumentListCacheProperties {
+
+    private boolean enabled = true;
+    private long maxSize = 10_000;
+    private Duration ttl = Duration.ofSeconds(60);
+    private String notifyChannel = "safedocs_document_list";
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,29 @@
+package org.devaxiom.safedocs.config;
+
+import lombok.RequiredArgsConstructor;
+import org.devaxiom.safedocs.service.FamilyMembershipIndex;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * On-demand consistency check of the in-memory membership index: GET reports drift, POST also repairs it.
+ */
+@Component
+@Endpoint(id = "membershipindex")
+@RequiredArgsConstructor
+public class FamilyMembershipIndexEndpoint {
+
+    private final FamilyMembershipIndex familyMembershipIndex;
+
+    @ReadOperation
+    public FamilyMembershipIndex.VerificationReport verify() {
+        return familyMembershipIndex.verify(false);
+    }
+
+    @WriteOperation
+    public FamilyMembershipIndex.VerificationReport repair() {
+        return familyMembershipIndex.verify(true);
+    }
+}
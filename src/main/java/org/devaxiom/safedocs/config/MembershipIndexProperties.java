@@ -0,0 +1,19 @@
+package org.devaxiom.safedocs.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "safedocs.membership-index")
+@Getter
+@Setter
+public class MembershipIndexProperties {
+
+    private Duration verifyInterval = Duration.ofMinutes(10);
+    private String notifyChannel = "safedocs_membership";
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,30 @@
+package org.devaxiom.safedocs.config;
+
+import lombok.RequiredArgsConstructor;
+import org.devaxiom.safedocs.service.PermissionJobService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off compaction of the permission job queue: GET counts PENDING jobs superseded by a later opposite
+ * action, POST cancels them.
+ */
+@Component
+@Endpoint(id = "permissionjobs")
+@RequiredArgsConstructor
+public class PermissionJobCompactionEndpoint {
+
+    private final PermissionJobService permissionJobService;
+
+    @ReadOperation
+    public PermissionJobService.CompactionReport preview() {
+        return permissionJobService.compactPending(true);
+    }
+
+    @WriteOperation
+    public PermissionJobService.CompactionReport compact() {
+        return permissionJobService.compactPending(false);
+    }
+}
@@ -0,0 +1,27 @@
+package org.devaxiom.safedocs.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "safedocs.permission-jobs")
+@Getter
+@Setter
+public class PermissionJobProperties {
+
+    private Duration leaseDuration = Duration.ofMinutes(5);
+    private int maxClaim = 100;
+    private Duration reapInterval = Duration.ofSeconds(30);
+    private int maxBatchUpdate = 500;
+    private int feedBatchSize = 100;
+    // Below the servlet container's default async timeout (30s on Tomcat)
+    private Duration maxPollTimeout = Duration.ofSeconds(25);
+    private Duration streamTimeout = Duration.ofMinutes(30);
+    private Duration streamHeartbeat = Duration.ofSeconds(25);
+    private String notifyChannel = "safedocs_permission_jobs";
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+}
@@ -0,0 +1,46 @@
+package org.devaxiom.safedocs.config;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@Validated
+@ConfigurationProperties(prefix = "safedocs.rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+
+    public enum Store {
+        LOCAL,
+        POSTGRES
+    }
+
+    private boolean enabled = true;
+    // Bound as an enum, so an unknown store fails startup naming this property rather than a missing RateLimiter bean.
+    @NotNull
+    private Store store = Store.LOCAL;
+    private long maxBuckets = 100_000;
+    private Duration idleEviction = Duration.ofMinutes(10);
+    private Duration cleanupInterval = Duration.ofMinutes(5);
+    // Keyed by route name, which is also the metric tag and part of the bucket key.
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Route {
+        private String method;
+        private String pattern;
+        // Only requests carrying this query parameter are limited (e.g. search on the list endpoint).
+        private String param;
+        private long capacity = 10;
+        private double refillPerSecond = 1;
+    }
+}
@@ -0,0 +1,75 @@
+package org.devaxiom.safedocs.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.metamodel.model.domain.ReturnableType;
+import org.hibernate.query.sqm.function.AbstractSqmSelfRenderingFunctionDescriptor;
+import org.hibernate.query.sqm.produce.function.StandardArgumentsValidators;
+import org.hibernate.query.sqm.produce.function.StandardFunctionReturnTypeResolvers;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.spi.SqlAppender;
+import org.hibernate.sql.ast.tree.SqlAstNode;
+import org.hibernate.sql.ast.tree.expression.ColumnReference;
+import org.hibernate.sql.ast.tree.expression.Expression;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.List;
+
+/**
+ * Exposes the PostgreSQL full-text and pg_trgm operators to Criteria queries as plain functions.
+ * Registered through META-INF/services; the objects they rely on are created by schema-postgresql.sql.
+ * <p>
+ * The document's search_vector column is not mapped on the entity (loading a document would transfer the whole
+ * tsvector). {@link #FTS_MATCH} and {@link #FTS_RANK} therefore take the document's id path as first argument
+ * and render search_vector against the same table alias, so only the search predicate and rank touch it.
+ */
+public class SearchFunctionContributor implements FunctionContributor {
+
+    public static final String FTS_MATCH = "fts_match";
+    public static final String FTS_RANK = "fts_rank";
+    public static final String TRGM_SIMILARITY = "trgm_similarity";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        var types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+        BasicType<Boolean> booleanType = types.resolve(StandardBasicTypes.BOOLEAN);
+        BasicType<Double> doubleType = types.resolve(StandardBasicTypes.DOUBLE);
+
+        var registry = functionContributions.getFunctionRegistry();
+        registry.register(FTS_MATCH, new SearchVectorFunction(FTS_MATCH, "(%s @@ to_tsquery('simple', ", "))", booleanType));
+        registry.register(FTS_RANK, new SearchVectorFunction(FTS_RANK, "ts_rank(%s, to_tsquery('simple', ", "))", doubleType));
+        registry.registerPattern(TRGM_SIMILARITY, "similarity(?1, ?2)", doubleType);
+    }
+
+    // fn(document.id, tsquery): renders the prefix with <alias>.search_vector, then the query argument and the suffix.
+    private static final class SearchVectorFunction extends AbstractSqmSelfRenderingFunctionDescriptor {
+
+        private final String name;
+        private final String prefix;
+        private final String suffix;
+
+        private SearchVectorFunction(String name, String prefix, String suffix, BasicType<?> type) {
+            super(name, StandardArgumentsValidators.exactly(2), StandardFunctionReturnTypeResolvers.invariant(type), null);
+            this.name = name;
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        @Override
+        public void render(
+                SqlAppender sqlAppender,
+                List<? extends SqlAstNode> arguments,
+                ReturnableType<?> returnType,
+                SqlAstTranslator<?> walker
+        ) {
+            ColumnReference id = arguments.get(0) instanceof Expression e ? e.getColumnReference() : null;
+            if (id == null || id.getQualifier() == null) {
+                throw new IllegalArgumentException(name + " expects the document id path as first argument");
+            }
+            sqlAppender.appendSql(prefix.formatted(id.getQualifier() + ".search_vector"));
+            arguments.get(1).accept(walker);
+            sqlAppender.appendSql(suffix);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.devaxiom.safedocs.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "safedocs.cache.user-auth")
+@Getter
+@Setter
+public class UserAuthCacheProperties {
+
+    private boolean enabled = true;
+    private long maxSize = 100_000;
+    private Duration ttl = Duration.ofMinutes(5);
+    private String notifyChannel = "safedocs_user_auth";
+    private Duration reconnectDelay = Duration.ofSeconds(5);
+}
@@ -7,7 +7,9 @@ import org.devaxiom.safedocs.dto.auth.DevLoginRequest;
 import org.devaxiom.safedocs.dto.auth.GoogleLoginRequest;
 import org.devaxiom.safedocs.dto.base.BaseResponseEntity;
 import org.devaxiom.safedocs.dto.base.ResponseBuilder;
+import org.devaxiom.safedocs.exception.UnauthorizedException;
 import org.devaxiom.safedocs.service.AuthService;
+import org.devaxiom.safedocs.service.PrincipleUserService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -20,6 +22,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthController {
 
     private final AuthService authService;
+    private final PrincipleUserService principleUserService;
 
     @Value("${dev.login.enabled:false}")
     private boolean devLoginEnabled;
@@ -40,4 +43,12 @@ public class AuthController {
         AuthResponse response = authService.devLogin(request.email(), request.secret(), devLoginEnabled, devLoginSecret);
         return ResponseBuilder.success(response, "Dev login successful");
     }
+
+    @PostMapping("/logout")
+    public BaseResponseEntity<Void> logout() {
+        Long userId = principleUserService.getCurrentUserId();
+        if (userId == null) throw new UnauthorizedException("Unauthorized");
+        authService.revokeTokens(userId);
+        return ResponseBuilder.success("Logged out");
+    }
 }
@@ -11,6 +11,7 @@ import org.devaxiom.safedocs.dto.document.BulkDeleteDocumentsResponse;
 import org.devaxiom.safedocs.dto.document.BulkUpdateDocumentSubjectRequest;
 import org.devaxiom.safedocs.dto.document.BulkUpdateDocumentSubjectResponse;
 import org.devaxiom.safedocs.dto.document.CreateDocumentRequest;
+import org.devaxiom.safedocs.dto.document.DocumentFacetsResponse;
 import org.devaxiom.safedocs.dto.document.DocumentPageResponse;
 import org.devaxiom.safedocs.dto.document.DocumentReconcileRequest;
 import org.devaxiom.safedocs.dto.document.DocumentReconcileResponse;
@@ -19,12 +20,17 @@ import org.devaxiom.safedocs.dto.document.DocumentShareResponse;
 import org.devaxiom.safedocs.dto.document.ReplaceDocumentFileRequest;
 import org.devaxiom.safedocs.dto.document.UpdateDocumentRequest;
 import org.devaxiom.safedocs.dto.document.UpdateDocumentSubjectRequest;
+import org.devaxiom.safedocs.enums.DocumentSortField;
 import org.devaxiom.safedocs.enums.DocumentVisibility;
 import org.devaxiom.safedocs.exception.BadRequestException;
 import org.devaxiom.safedocs.model.User;
 import org.devaxiom.safedocs.service.DocumentService;
 import org.devaxiom.safedocs.service.PrincipleUserService;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -35,6 +41,8 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -46,6 +54,8 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class DocumentController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final DocumentService documentService;
     private final PrincipleUserService principleUserService;
 
@@ -87,7 +97,11 @@ public class DocumentController {
             @RequestParam(value = "subjectId", required = false) String subjectId,
             @RequestParam(value = "uncategorized", defaultValue = "false") boolean uncategorized,
             @RequestParam(value = "createdAfter", required = false) String createdAfter,
-            @RequestParam(value = "createdBefore", required = false) String createdBefore) {
+            @RequestParam(value = "createdBefore", required = false) String createdBefore,
+            @RequestParam(value = "sort", required = false) DocumentSortField sort,
+            @RequestParam(value = "direction", required = false) Sort.Direction direction,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            WebRequest webRequest) {
         if (type != null) {
             throw new BadRequestException("type is deprecated; use visibility");
         }
@@ -109,10 +123,14 @@ public class DocumentController {
                 subjectId != null ? parseId(subjectId) : null,
                 uncategorized,
                 createdAfterLdt,
-                createdBeforeLdt
+                createdBeforeLdt,
+                sort,
+                direction,
+                cursor
         );
-        DocumentPageResponse resp = documentService.listWithFilters(filter, user);
-        return ResponseBuilder.success(resp, "Documents fetched");
+        DocumentService.ListedPage listed = documentService.listWithFilters(filter, user, webRequest::checkNotModified);
+        if (listed.page() == null) return null;
+        return ResponseBuilder.success(listed.page(), "Documents fetched");
     }
 
     @PatchMapping("/subject/bulk")
@@ -147,16 +165,41 @@ public class DocumentController {
     public BaseResponseEntity<DocumentPageResponse> sharedWithMe(
             @RequestParam(value = "search", required = false) String search,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "20") int size) {
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "sort", required = false) DocumentSortField sort,
+            @RequestParam(value = "direction", required = false) Sort.Direction direction,
+            @RequestParam(value = "cursor", required = false) String cursor) {
         User user = requireUser();
-        DocumentPageResponse items = documentService.listSharedWith(user, page, size, search);
+        DocumentPageResponse items = documentService.listSharedWith(user, page, size, search, sort, direction, cursor);
         return ResponseBuilder.success(items, "Shared documents fetched");
     }
 
+    @GetMapping("/facets")
+    public BaseResponseEntity<DocumentFacetsResponse> facets(
+            @RequestParam(value = "visibility", required = false) DocumentVisibility visibility,
+            @RequestParam(value = "familyId", required = false) String familyId) {
+        User user = requireUser();
+        DocumentFacetsResponse resp = documentService.facets(user, visibility, familyId != null ? parseId(familyId) : null);
+        return ResponseBuilder.success(resp, "Document facets fetched");
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> export() {
+        User user = requireUser();
+        StreamingResponseBody body = out -> documentService.exportDocuments(user, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"safedocs-documents.ndjson\"")
+                .body(body);
+    }
+
     @GetMapping("/{id}")
-    public BaseResponseEntity<DocumentResponse> getDocument(@PathVariable("id") String id) {
+    public BaseResponseEntity<DocumentResponse> getDocument(@PathVariable("id") String id, WebRequest webRequest) {
         User user = requireUser();
-        DocumentResponse resp = documentService.getDocument(parseId(id), user);
+        UUID documentId = parseId(id);
+        String etag = documentService.documentEtag(documentId, user);
+        if (etag != null && webRequest.checkNotModified(etag)) return null;
+        DocumentResponse resp = documentService.getDocument(documentId, user);
         return ResponseBuilder.success(resp, "Document fetched");
     }
 
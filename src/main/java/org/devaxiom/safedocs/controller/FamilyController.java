@@ -17,6 +17,7 @@ import org.devaxiom.safedocs.model.User;
 import org.devaxiom.safedocs.service.FamilyService;
 import org.devaxiom.safedocs.service.PrincipleUserService;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -42,9 +43,12 @@ public class FamilyController {
     }
 
     @GetMapping("/{familyId}")
-    public BaseResponseEntity<FamilyProfileResponse> profile(@PathVariable String familyId) {
+    public BaseResponseEntity<FamilyProfileResponse> profile(@PathVariable String familyId, WebRequest webRequest) {
         User user = currentUser();
-        return ResponseBuilder.success(familyService.getFamilyProfile(parseUuid(familyId), user), "Family profile fetched");
+        UUID familyPublicId = parseUuid(familyId);
+        String etag = familyService.profileEtag(familyPublicId, user);
+        if (etag != null && webRequest.checkNotModified(etag)) return null;
+        return ResponseBuilder.success(familyService.getFamilyProfile(familyPublicId, user), "Family profile fetched");
     }
 
     @PutMapping("/{familyId}")
@@ -4,19 +4,28 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.devaxiom.safedocs.dto.base.BaseResponseEntity;
 import org.devaxiom.safedocs.dto.base.ResponseBuilder;
+import org.devaxiom.safedocs.dto.permission.PermissionJobBatchUpdateRequest;
+import org.devaxiom.safedocs.dto.permission.PermissionJobBatchUpdateResponse;
 import org.devaxiom.safedocs.dto.permission.PermissionJobCreateRequest;
+import org.devaxiom.safedocs.dto.permission.PermissionJobClaimResponse;
 import org.devaxiom.safedocs.dto.permission.PermissionJobCreateResponse;
+import org.devaxiom.safedocs.dto.permission.PermissionJobFeedResponse;
 import org.devaxiom.safedocs.dto.permission.PermissionJobResponse;
 import org.devaxiom.safedocs.dto.permission.PermissionJobUpdateRequest;
 import org.devaxiom.safedocs.enums.PermissionJobStatus;
 import org.devaxiom.safedocs.exception.BadRequestException;
 import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.service.PermissionJobFeed;
 import org.devaxiom.safedocs.service.PermissionJobService;
 import org.devaxiom.safedocs.service.PrincipleUserService;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/permissions/jobs")
@@ -24,6 +33,7 @@ import java.util.UUID;
 public class PermissionJobController {
 
     private final PermissionJobService permissionJobService;
+    private final PermissionJobFeed permissionJobFeed;
     private final PrincipleUserService principleUserService;
 
     @PostMapping
@@ -34,6 +44,44 @@ public class PermissionJobController {
         return ResponseBuilder.success(new PermissionJobCreateResponse(queued), "Jobs queued");
     }
 
+    @PostMapping("/claim")
+    public BaseResponseEntity<PermissionJobClaimResponse> claimJobs(
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "worker", required = false) String worker) {
+        User user = principleUserService.getCurrentUser().orElseThrow(() -> new BadRequestException("Unauthorized"));
+        PermissionJobClaimResponse response = permissionJobService.claimJobs(user, limit, worker);
+        return ResponseBuilder.success(response, "Jobs claimed");
+    }
+
+    @GetMapping("/poll")
+    public CompletableFuture<BaseResponseEntity<PermissionJobFeedResponse>> pollJobs(
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @RequestParam(value = "timeout", defaultValue = "25") long timeoutSeconds) {
+        User user = principleUserService.getCurrentUser().orElseThrow(() -> new BadRequestException("Unauthorized"));
+        if (since < 0) throw new BadRequestException("since must not be negative");
+        if (timeoutSeconds < 0) throw new BadRequestException("timeout must not be negative");
+        return permissionJobFeed.poll(user.getId(), since, Duration.ofSeconds(timeoutSeconds))
+                .thenApply(feed -> ResponseBuilder.success(feed, "Jobs fetched"));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJobs(
+            @RequestParam(value = "since", required = false) Long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        User user = principleUserService.getCurrentUser().orElseThrow(() -> new BadRequestException("Unauthorized"));
+        long cursor = since != null ? since : 0L;
+        // A reconnecting EventSource resumes after the last event it received.
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                cursor = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Invalid Last-Event-ID");
+            }
+        }
+        if (cursor < 0) throw new BadRequestException("since must not be negative");
+        return permissionJobFeed.stream(user.getId(), cursor);
+    }
+
     @GetMapping
     public BaseResponseEntity<List<PermissionJobResponse>> listJobs(
             @RequestParam(value = "status", required = false) PermissionJobStatus status,
@@ -46,6 +94,14 @@ public class PermissionJobController {
         return ResponseBuilder.success(jobs, "Jobs fetched");
     }
 
+    @PatchMapping
+    public BaseResponseEntity<PermissionJobBatchUpdateResponse> updateJobs(
+            @Valid @RequestBody PermissionJobBatchUpdateRequest request) {
+        User user = principleUserService.getCurrentUser().orElseThrow(() -> new BadRequestException("Unauthorized"));
+        PermissionJobBatchUpdateResponse response = permissionJobService.updateJobs(request.jobs(), user);
+        return ResponseBuilder.success(response, "Jobs updated");
+    }
+
     @PatchMapping("/{jobId}")
     public BaseResponseEntity<PermissionJobResponse> updateJob(
             @PathVariable("jobId") UUID jobId,
@@ -24,6 +24,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.UUID;
 
@@ -40,10 +41,12 @@ public class SubjectController {
             @RequestParam(value = "scope") SubjectScope scope,
             @RequestParam(value = "familyId", required = false) String familyId,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "20") int size
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            WebRequest webRequest
     ) {
         User user = requireUser();
         UUID familyPublicId = familyId != null ? parseUuid(familyId, "familyId") : null;
+        if (webRequest.checkNotModified(subjectService.listEtag(user, scope, familyPublicId, page, size))) return null;
         SubjectPageResponse resp = subjectService.list(user, scope, familyPublicId, page, size);
         return ResponseBuilder.success(resp, "Subjects fetched");
     }
@@ -0,0 +1,27 @@
+package org.devaxiom.safedocs.dto.document;
+
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public record DocumentFacetsResponse(
+        Map<DocumentVisibility, Long> visibilities,
+        List<CategoryCount> categories,
+        List<SubjectCount> subjects,
+        long uncategorized,
+        long total
+) {
+    public record CategoryCount(
+            String category,
+            long count
+    ) {
+    }
+
+    public record SubjectCount(
+            UUID subjectId,
+            long count
+    ) {
+    }
+}
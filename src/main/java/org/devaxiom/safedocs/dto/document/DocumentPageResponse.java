@@ -6,6 +6,10 @@ public record DocumentPageResponse(
         List<DocumentListItem> items,
         int page,
         int size,
-        long total
+        long total,
+        String nextCursor
 ) {
+    public DocumentPageResponse(List<DocumentListItem> items, int page, int size, long total) {
+        this(items, page, size, total, null);
+    }
 }
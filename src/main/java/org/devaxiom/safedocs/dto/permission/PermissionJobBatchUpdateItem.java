@@ -0,0 +1,19 @@
+package org.devaxiom.safedocs.dto.permission;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import org.devaxiom.safedocs.enums.PermissionJobStatus;
+
+import java.util.UUID;
+
+public record PermissionJobBatchUpdateItem(
+        @NotNull(message = "jobId is required")
+        UUID jobId,
+        @NotNull(message = "status is required")
+        PermissionJobStatus status,
+        Integer attempts,
+        @Size(max = 500, message = "lastError must be at most 500 characters")
+        String lastError,
+        String leaseOwner
+) {
+}
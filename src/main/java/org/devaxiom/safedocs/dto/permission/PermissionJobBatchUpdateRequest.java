@@ -0,0 +1,12 @@
+package org.devaxiom.safedocs.dto.permission;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public record PermissionJobBatchUpdateRequest(
+        @NotEmpty(message = "jobs are required")
+        List<@Valid PermissionJobBatchUpdateItem> jobs
+) {
+}
@@ -0,0 +1,9 @@
+package org.devaxiom.safedocs.dto.permission;
+
+import java.util.List;
+
+public record PermissionJobBatchUpdateResponse(
+        int updated,
+        List<PermissionJobUpdateResult> results
+) {
+}
@@ -0,0 +1,11 @@
+package org.devaxiom.safedocs.dto.permission;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record PermissionJobClaimResponse(
+        String leaseOwner,
+        LocalDateTime leaseExpiresAt,
+        List<PermissionJobResponse> jobs
+) {
+}
@@ -0,0 +1,10 @@
+package org.devaxiom.safedocs.dto.permission;
+
+import java.util.List;
+
+public record PermissionJobFeedResponse(
+        // Pass back as since= to continue after these jobs
+        long cursor,
+        List<PermissionJobResponse> jobs
+) {
+}
@@ -7,6 +7,8 @@ public record PermissionJobUpdateRequest(
         @NotNull(message = "status is required")
         PermissionJobStatus status,
         Integer attempts,
-        String lastError
+        String lastError,
+        // Required to complete a job leased through /claim while the lease is live
+        String leaseOwner
 ) {
 }
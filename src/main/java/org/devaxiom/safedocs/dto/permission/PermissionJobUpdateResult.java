@@ -0,0 +1,14 @@
+package org.devaxiom.safedocs.dto.permission;
+
+import org.devaxiom.safedocs.enums.PermissionJobStatus;
+
+import java.util.UUID;
+
+public record PermissionJobUpdateResult(
+        UUID jobId,
+        boolean updated,
+        // The job's status after the call; null when the job was not found
+        PermissionJobStatus status,
+        String error
+) {
+}
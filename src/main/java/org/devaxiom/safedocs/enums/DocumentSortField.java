@@ -0,0 +1,9 @@
+package org.devaxiom.safedocs.enums;
+
+public enum DocumentSortField {
+    TITLE,
+    CREATED_DATE,
+    SIZE_BYTES,
+    LAST_MODIFIED_DATE,
+    RELEVANCE
+}
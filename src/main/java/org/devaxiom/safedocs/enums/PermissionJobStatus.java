@@ -2,6 +2,9 @@ package org.devaxiom.safedocs.enums;
 
 public enum PermissionJobStatus {
     PENDING,
+    LEASED,
     DONE,
-    FAILED
+    FAILED,
+    // Superseded by a later opposite action before it was applied
+    CANCELLED
 }
@@ -0,0 +1,23 @@
+package org.devaxiom.safedocs.event;
+
+import lombok.Builder;
+import lombok.Singular;
+
+import java.util.Set;
+
+/**
+ * Published after a write that can change what some users see in their document lists.
+ * Names the audience rather than the documents: users directly, every active member of the families,
+ * and the recipients of the shares (by normalized email).
+ */
+@Builder
+public record DocumentListsChangedEvent(
+        @Singular Set<Long> userIds,
+        @Singular Set<Long> familyIds,
+        @Singular Set<String> recipientEmails
+) {
+
+    public boolean isEmpty() {
+        return userIds.isEmpty() && familyIds.isEmpty() && recipientEmails.isEmpty();
+    }
+}
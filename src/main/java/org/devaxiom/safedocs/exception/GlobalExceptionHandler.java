@@ -8,6 +8,7 @@ import org.devaxiom.safedocs.dto.base.ResponseBuilder;
 import org.devaxiom.safedocs.enums.APIActionCode;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -236,6 +237,22 @@ public class GlobalExceptionHandler {
         return new BaseResponseEntity<>(body, HttpStatus.TOO_MANY_REQUESTS);
     }
 
+    // 429: per-user rate limits
+    @ExceptionHandler(RateLimitExceededException.class)
+    public BaseResponseEntity<?> handleRateLimit(RateLimitExceededException ex) {
+        BaseResponse.ErrorDetail detail = new BaseResponse.ErrorDetail("RATE_LIMIT_EXCEEDED", null, ex.getMessage());
+        BaseResponse<?> body = BaseResponse.builder()
+                .success(false)
+                .message(ex.getMessage())
+                .errors(List.of(detail))
+                .build();
+        HttpHeaders headers = new HttpHeaders();
+        // Whole seconds, rounded up so a client that honours it is admitted on the retry
+        long seconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        return new BaseResponseEntity<>(body, headers, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
     // 401: unauthorized access
     @ExceptionHandler(UnauthorizedException.class)
     public BaseResponseEntity<?> handleUnauthorized(UnauthorizedException ex) {
@@ -0,0 +1,16 @@
+package org.devaxiom.safedocs.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class RateLimitExceededException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String route, Duration retryAfter) {
+        super("Rate limit exceeded: " + route);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -1,7 +1,10 @@
 package org.devaxiom.safedocs.mail;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -11,14 +14,27 @@ import java.util.concurrent.Executor;
 @EnableAsync
 public class AsyncConfig {
 
+    // Same bound on concurrent SMTP sends in both modes.
+    private static final int MAX_CONCURRENT_SENDS = 10;
+
     @Bean(name = "mailExecutor")
+    @ConditionalOnThreading(Threading.PLATFORM)
     public Executor mailExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(10);
+        executor.setMaxPoolSize(MAX_CONCURRENT_SENDS);
         executor.setQueueCapacity(200);
         executor.setThreadNamePrefix("mail-async-");
         executor.initialize();
         return executor;
     }
+
+    @Bean(name = "mailExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualMailExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mail-async-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(MAX_CONCURRENT_SENDS);
+        return executor;
+    }
 }
@@ -44,7 +44,13 @@ import java.util.UUID;
                 @Index(name = "idx_document_family_visibility", columnList = "family_id, visibility"),
                 @Index(name = "idx_document_owner_status", columnList = "owner_id, status"),
                 @Index(name = "idx_document_visibility_status", columnList = "visibility, status"),
-                @Index(name = "idx_document_subject_created", columnList = "subject_id, created_date")
+                @Index(name = "idx_document_subject_created", columnList = "subject_id, created_date"),
+                @Index(name = "idx_document_owner_created_id", columnList = "owner_id, visibility, status, created_date, id"),
+                @Index(name = "idx_document_owner_size_id", columnList = "owner_id, visibility, status, size_bytes, id"),
+                @Index(name = "idx_document_owner_modified_id", columnList = "owner_id, visibility, status, last_modified_date, id"),
+                @Index(name = "idx_document_family_created_id", columnList = "family_id, visibility, status, created_date, id"),
+                @Index(name = "idx_document_family_size_id", columnList = "family_id, visibility, status, size_bytes, id"),
+                @Index(name = "idx_document_family_modified_id", columnList = "family_id, visibility, status, last_modified_date, id")
         })
 @DynamicUpdate
 public class Document extends AbstractAuditable<Long> {
@@ -0,0 +1,34 @@
+package org.devaxiom.safedocs.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.devaxiom.safedocs.enums.DocumentAccessLevel;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Who can see which document, derived from ownership, family membership and shares. Rows are written only by
+ * {@link org.devaxiom.safedocs.service.DocumentAccessService}; the primary key (user_id, document_id) is the
+ * lookup path for visibility checks.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "document_access",
+        indexes = @Index(name = "idx_document_access_document", columnList = "document_id"))
+public class DocumentAccess {
+
+    @EmbeddedId
+    private DocumentAccessId id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "access_level", nullable = false, length = 20)
+    private DocumentAccessLevel level;
+}
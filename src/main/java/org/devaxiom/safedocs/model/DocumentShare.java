@@ -12,7 +12,8 @@ import org.hibernate.annotations.DynamicUpdate;
 @AllArgsConstructor
 @Entity
 @Table(name = "document_share",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"document_id", "recipient_email"}))
+        uniqueConstraints = @UniqueConstraint(columnNames = {"document_id", "recipient_email"}),
+        indexes = @Index(name = "idx_document_share_recipient_status_doc", columnList = "recipient_email, status, document_id"))
 @DynamicUpdate
 public class DocumentShare extends AbstractAuditable<Long> {
 
@@ -21,6 +21,7 @@ import org.devaxiom.safedocs.enums.PermissionJobAction;
 import org.devaxiom.safedocs.enums.PermissionJobStatus;
 import org.hibernate.annotations.DynamicUpdate;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Getter
@@ -36,7 +37,9 @@ import java.util.UUID;
         }),
         indexes = {
                 @Index(name = "idx_permission_job_owner_status", columnList = "owner_user_id, status"),
-                @Index(name = "idx_permission_job_family", columnList = "family_id")
+                @Index(name = "idx_permission_job_family", columnList = "family_id"),
+                @Index(name = "idx_permission_job_status_lease", columnList = "status, lease_expires_at"),
+                @Index(name = "idx_permission_job_owner_feed", columnList = "owner_user_id, status, feed_seq")
         }
 )
 @DynamicUpdate
@@ -76,6 +79,16 @@ public class PermissionJob extends AbstractAuditable<Long> {
     @Column(name = "last_error", length = 500)
     private String lastError;
 
+    @Column(name = "lease_owner", length = 100)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // Position in the owner's job feed, taken whenever the job becomes PENDING (see PermissionJobService).
+    @Column(name = "feed_seq")
+    private Long feedSeq;
+
     @PrePersist
     void initDefaults() {
         if (jobId == null) jobId = UUID.randomUUID();
@@ -3,6 +3,7 @@ package org.devaxiom.safedocs.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.devaxiom.safedocs.enums.AuthProviderType;
+import org.devaxiom.safedocs.security.UserAuthStateListener;
 import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.SQLDelete;
@@ -19,6 +20,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(UserAuthStateListener.class)
 @SQLDelete(sql = "UPDATE app_user SET deleted = true, is_active = false, version = version + 1 WHERE id = ? AND version = ?")
 @DynamicUpdate
 @Table(
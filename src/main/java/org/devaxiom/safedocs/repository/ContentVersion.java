@@ -0,0 +1,16 @@
+package org.devaxiom.safedocs.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cheap fingerprint of a set of rows for conditional GETs: how many there are and when the newest one changed.
+ * Adding or removing a row moves the count; editing one moves the timestamp.
+ */
+public record ContentVersion(
+        Long count,
+        LocalDateTime lastModified
+) {
+    public boolean isEmpty() {
+        return count == null || count == 0;
+    }
+}
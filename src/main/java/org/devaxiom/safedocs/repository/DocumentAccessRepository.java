@@ -0,0 +1,10 @@
+package org.devaxiom.safedocs.repository;
+
+import org.devaxiom.safedocs.model.DocumentAccess;
+import org.devaxiom.safedocs.model.DocumentAccessId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DocumentAccessRepository extends JpaRepository<DocumentAccess, DocumentAccessId> {
+}
@@ -0,0 +1,82 @@
+package org.devaxiom.safedocs.repository;
+
+import org.devaxiom.safedocs.enums.DocumentSortField;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a page for keyset pagination: the sort key of that row plus its id as tie-breaker.
+ * Encoded as an opaque url-safe string so clients only ever echo it back.
+ */
+public record DocumentCursor(
+        DocumentSortField sort,
+        Sort.Direction direction,
+        Object key,
+        long id
+) {
+
+    private static final String SEPARATOR = "|";
+    private static final String NULL_KEY = "N";
+    private static final String VALUE_PREFIX = "V";
+
+    public static DocumentCursor after(DocumentListRow row, DocumentSortField sort, Sort.Direction direction) {
+        return new DocumentCursor(sort, direction, sortKey(row, sort), row.id());
+    }
+
+    public static Object sortKey(DocumentListRow row, DocumentSortField sort) {
+        return switch (sort) {
+            case TITLE -> row.titleKey();
+            case CREATED_DATE -> row.createdDate();
+            case SIZE_BYTES -> row.sizeBytes();
+            case LAST_MODIFIED_DATE -> row.lastModifiedDate();
+            case RELEVANCE -> throw new IllegalArgumentException("RELEVANCE order does not support cursors");
+        };
+    }
+
+    public String encode() {
+        String raw = sort.name() + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR
+                + (key == null ? NULL_KEY : VALUE_PREFIX + key);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException for any value that {@link #encode()} did not produce
+     */
+    public static DocumentCursor decode(String encoded) {
+        try {
+            return parse(new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8));
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+
+    private static DocumentCursor parse(String raw) {
+        String[] parts = raw.split("\\|", 4);
+        if (parts.length != 4) throw new IllegalArgumentException("Malformed cursor");
+
+        DocumentSortField sort = DocumentSortField.valueOf(parts[0]);
+        Sort.Direction direction = Sort.Direction.valueOf(parts[1]);
+        long id = Long.parseLong(parts[2]);
+        String rawKey = parts[3];
+
+        Object key;
+        if (NULL_KEY.equals(rawKey)) {
+            key = null;
+        } else if (rawKey.startsWith(VALUE_PREFIX)) {
+            String value = rawKey.substring(VALUE_PREFIX.length());
+            key = switch (sort) {
+                case TITLE -> value;
+                case CREATED_DATE, LAST_MODIFIED_DATE -> LocalDateTime.parse(value);
+                case SIZE_BYTES -> Long.parseLong(value);
+                case RELEVANCE -> throw new IllegalArgumentException("RELEVANCE order does not support cursors");
+            };
+        } else {
+            throw new IllegalArgumentException("Malformed cursor");
+        }
+        return new DocumentCursor(sort, direction, key, id);
+    }
+}
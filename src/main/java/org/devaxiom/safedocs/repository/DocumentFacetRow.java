@@ -0,0 +1,16 @@
+package org.devaxiom.safedocs.repository;
+
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+
+import java.util.UUID;
+
+/**
+ * One group of the facet aggregate: how many documents share this (visibility, category, subject) combination.
+ */
+public record DocumentFacetRow(
+        DocumentVisibility visibility,
+        String category,
+        UUID subjectId,
+        Long count
+) {
+}
@@ -0,0 +1,52 @@
+package org.devaxiom.safedocs.repository;
+
+import org.devaxiom.safedocs.dto.document.DocumentListItem;
+import org.devaxiom.safedocs.enums.DocumentReferenceType;
+import org.devaxiom.safedocs.enums.DocumentStatus;
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Flat projection of one document list row: the {@link DocumentListItem} columns plus the internal id and
+ * timestamps needed to build the next page cursor. Selected with a constructor expression, so it is never managed.
+ * {@code titleKey} is {@code lower(title)} as computed by the database, the same expression the TITLE order and
+ * seek compare against, so the cursor key never depends on the JVM's case mapping.
+ */
+public record DocumentListRow(
+        Long id,
+        LocalDateTime createdDate,
+        LocalDateTime lastModifiedDate,
+        UUID publicId,
+        String driveFileId,
+        String fileName,
+        String title,
+        String mimeType,
+        Long sizeBytes,
+        DocumentVisibility visibility,
+        String category,
+        UUID familyId,
+        UUID subjectId,
+        DocumentReferenceType referenceType,
+        DocumentStatus status,
+        String titleKey
+) {
+
+    public DocumentListItem toItem() {
+        return new DocumentListItem(
+                publicId,
+                driveFileId,
+                fileName,
+                title,
+                mimeType,
+                sizeBytes,
+                visibility,
+                category,
+                familyId,
+                subjectId,
+                referenceType,
+                status
+        );
+    }
+}
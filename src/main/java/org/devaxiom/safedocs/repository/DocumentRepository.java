@@ -1,45 +1,46 @@
 package org.devaxiom.safedocs.repository;
 
+import org.devaxiom.safedocs.dto.document.DocumentListItem;
 import org.devaxiom.safedocs.enums.DocumentStatus;
 import org.devaxiom.safedocs.enums.DocumentVisibility;
 import org.devaxiom.safedocs.model.Document;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface DocumentRepository extends JpaRepository<Document, Long> {
+public interface DocumentRepository extends JpaRepository<Document, Long>, JpaSpecificationExecutor<Document>, DocumentRepositoryCustom {
+
+    String LIST_ITEM_SELECT = "select new org.devaxiom.safedocs.dto.document.DocumentListItem("
+            + "d.publicId, d.driveFileId, d.fileName, d.title, d.mimeType, d.sizeBytes, d.visibility, d.category, "
+            + "f.publicId, d.subject.id, d.referenceType, d.status) "
+            + "from Document d left join d.family f";
+
     Optional<Document> findByPublicId(UUID publicId);
 
+    List<Document> findByPublicIdIn(Collection<UUID> publicIds);
+
     List<Document> findByPublicIdInAndStatus(List<UUID> publicIds, DocumentStatus status);
 
     List<Document> findByOwnerIdAndVisibilityAndStatus(Long ownerId, DocumentVisibility visibility, DocumentStatus status, Sort sort);
 
-        List<Document> findByOwnerIdAndVisibilityAndStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
-            Long ownerId,
-            DocumentVisibility visibility,
-            DocumentStatus status,
-            java.time.LocalDateTime createdAfter,
-            java.time.LocalDateTime createdBefore,
-            Sort sort);
+    @Query(LIST_ITEM_SELECT + " where d.owner.id = :ownerId and d.visibility = :visibility and d.status = :status")
+    List<DocumentListItem> findListItemsByOwner(Long ownerId, DocumentVisibility visibility, DocumentStatus status, Sort sort);
+
+    @Query(LIST_ITEM_SELECT + " where f.id in :familyIds and d.visibility = :visibility and d.status = :status")
+    List<DocumentListItem> findListItemsByFamilies(Collection<Long> familyIds, DocumentVisibility visibility, DocumentStatus status, Sort sort);
 
     Optional<Document> findByOwnerIdAndDriveFileId(Long ownerId, String driveFileId);
 
     List<Document> findByFamilyIdAndStatus(Long familyId, DocumentStatus status, Sort sort);
 
-    List<Document> findByFamilyIdInAndStatus(List<Long> familyIds, DocumentStatus status, Sort sort);
-
-        List<Document> findByFamilyIdInAndStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
-            List<Long> familyIds,
-            DocumentStatus status,
-            java.time.LocalDateTime createdAfter,
-            java.time.LocalDateTime createdBefore,
-            Sort sort);
-
     List<Document> findByFamilyId(Long familyId);
 
     List<Document> findByOwnerIdAndStatus(Long ownerId, DocumentStatus status, Sort sort);
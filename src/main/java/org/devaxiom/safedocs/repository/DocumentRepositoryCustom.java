@@ -0,0 +1,44 @@
+package org.devaxiom.safedocs.repository;
+
+import org.devaxiom.safedocs.enums.DocumentSortField;
+import org.devaxiom.safedocs.model.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface DocumentRepositoryCustom {
+
+    /**
+     * Returns at most {@code limit} list rows for documents matching {@code spec}, ordered by (sort key, id).
+     * Family and subject ids are joined into the row, so a page is a single select with no entity loading.
+     * When {@code after} is given the page seeks past that position instead of skipping {@code offset} rows.
+     * {@link DocumentSortField#RELEVANCE} ranks by {@code search} and only supports offsets.
+     */
+    List<DocumentListRow> findPage(
+            Specification<Document> spec,
+            DocumentSearchQuery search,
+            DocumentSortField sort,
+            Sort.Direction direction,
+            DocumentCursor after,
+            int offset,
+            int limit
+    );
+
+    /**
+     * Streams every row matching {@code spec} in id order from a server-side cursor, {@code fetchSize} rows at a time.
+     * Must be consumed inside a transaction and closed by the caller.
+     */
+    Stream<DocumentListRow> streamRows(Specification<Document> spec, int fetchSize);
+
+    /**
+     * Counts documents matching {@code spec} grouped by (visibility, category, subject) in one aggregate.
+     */
+    List<DocumentFacetRow> countFacets(Specification<Document> spec);
+
+    /**
+     * Count and newest {@code lastModifiedDate} of the documents matching {@code spec}, for ETags.
+     */
+    ContentVersion contentVersion(Specification<Document> spec);
+}
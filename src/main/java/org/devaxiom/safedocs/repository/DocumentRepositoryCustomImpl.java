@@ -0,0 +1,186 @@
+package org.devaxiom.safedocs.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CompoundSelection;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.devaxiom.safedocs.config.SearchFunctionContributor;
+import org.devaxiom.safedocs.enums.DocumentSortField;
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+import org.devaxiom.safedocs.model.Document;
+import org.devaxiom.safedocs.model.Family;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+class DocumentRepositoryCustomImpl implements DocumentRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<DocumentListRow> findPage(
+            Specification<Document> spec,
+            DocumentSearchQuery search,
+            DocumentSortField sort,
+            Sort.Direction direction,
+            DocumentCursor after,
+            int offset,
+            int limit
+    ) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DocumentListRow> query = cb.createQuery(DocumentListRow.class);
+        Root<Document> root = query.from(Document.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filter = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (filter != null) predicates.add(filter);
+        if (after != null) predicates.add(seek(cb, root, sort, direction, after));
+
+        Expression<?> key = sortKey(cb, root, sort, search);
+        Path<Long> id = root.get("id");
+        boolean asc = direction.isAscending();
+        query.select(listRow(cb, root))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(asc ? cb.asc(key) : cb.desc(key), asc ? cb.asc(id) : cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(after != null ? 0 : Math.max(0, offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<DocumentListRow> streamRows(Specification<Document> spec, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DocumentListRow> query = cb.createQuery(DocumentListRow.class);
+        Root<Document> root = query.from(Document.class);
+        Predicate filter = spec != null ? spec.toPredicate(root, query, cb) : null;
+        query.select(listRow(cb, root)).orderBy(cb.asc(root.get("id")));
+        if (filter != null) query.where(filter);
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public List<DocumentFacetRow> countFacets(Specification<Document> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DocumentFacetRow> query = cb.createQuery(DocumentFacetRow.class);
+        Root<Document> root = query.from(Document.class);
+        Path<DocumentVisibility> visibility = root.get("visibility");
+        Path<String> category = root.get("category");
+        Path<UUID> subjectId = root.get("subject").get("id");
+        Predicate filter = spec != null ? spec.toPredicate(root, query, cb) : null;
+        query.select(cb.construct(DocumentFacetRow.class, visibility, category, subjectId, cb.count(root)))
+                .groupBy(visibility, category, subjectId);
+        if (filter != null) query.where(filter);
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    @Override
+    public ContentVersion contentVersion(Specification<Document> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ContentVersion> query = cb.createQuery(ContentVersion.class);
+        Root<Document> root = query.from(Document.class);
+        Predicate filter = spec != null ? spec.toPredicate(root, query, cb) : null;
+        query.select(cb.construct(ContentVersion.class,
+                cb.count(root), cb.greatest(root.<LocalDateTime>get("lastModifiedDate"))));
+        if (filter != null) query.where(filter);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private CompoundSelection<DocumentListRow> listRow(CriteriaBuilder cb, Root<Document> root) {
+        Join<Document, Family> family = root.join("family", JoinType.LEFT);
+        return cb.construct(DocumentListRow.class,
+                root.get("id"),
+                root.get("createdDate"),
+                root.get("lastModifiedDate"),
+                root.get("publicId"),
+                root.get("driveFileId"),
+                root.get("fileName"),
+                root.get("title"),
+                root.get("mimeType"),
+                root.get("sizeBytes"),
+                root.get("visibility"),
+                root.get("category"),
+                family.get("publicId"),
+                root.get("subject").get("id"),
+                root.get("referenceType"),
+                root.get("status"),
+                cb.lower(root.get("title")));
+    }
+
+    private Expression<?> sortKey(CriteriaBuilder cb, Root<Document> root, DocumentSortField sort, DocumentSearchQuery search) {
+        return switch (sort) {
+            case TITLE -> cb.lower(root.get("title"));
+            case CREATED_DATE -> root.get("createdDate");
+            case SIZE_BYTES -> root.get("sizeBytes");
+            case LAST_MODIFIED_DATE -> root.get("lastModifiedDate");
+            case RELEVANCE -> relevance(cb, root, search);
+        };
+    }
+
+    // Word-match rank from the tsvector plus trigram similarity of the title, so close title
+    // matches still surface when the search is a fragment rather than a word prefix.
+    private Expression<Double> relevance(CriteriaBuilder cb, Root<Document> root, DocumentSearchQuery search) {
+        if (search == null) throw new IllegalArgumentException("RELEVANCE order requires a search");
+        Expression<Double> similarity = cb.function(SearchFunctionContributor.TRGM_SIMILARITY, Double.class,
+                cb.lower(root.get("title")), cb.literal(search.term()));
+        if (search.tsQuery() == null) return similarity;
+        Expression<Double> rank = cb.function(SearchFunctionContributor.FTS_RANK, Double.class,
+                root.get("id"), cb.literal(search.tsQuery()));
+        return cb.sum(rank, similarity);
+    }
+
+    private Predicate seek(CriteriaBuilder cb, Root<Document> root, DocumentSortField sort, Sort.Direction direction, DocumentCursor after) {
+        Path<Long> id = root.get("id");
+        boolean asc = direction.isAscending();
+        return switch (sort) {
+            case TITLE -> seek(cb, cb.lower(root.get("title")), (String) after.key(), id, after.id(), asc, false);
+            case CREATED_DATE -> seek(cb, root.<LocalDateTime>get("createdDate"), (LocalDateTime) after.key(), id, after.id(), asc, false);
+            case SIZE_BYTES -> seek(cb, root.<Long>get("sizeBytes"), (Long) after.key(), id, after.id(), asc, true);
+            case LAST_MODIFIED_DATE -> seek(cb, root.<LocalDateTime>get("lastModifiedDate"), (LocalDateTime) after.key(), id, after.id(), asc, true);
+            case RELEVANCE -> throw new IllegalArgumentException("RELEVANCE order does not support cursors");
+        };
+    }
+
+    // Rows strictly after (value, lastId) in (key, id) order. Nullable keys follow PostgreSQL's default
+    // placement: NULLs sort last ascending and first descending.
+    private <Y extends Comparable<? super Y>> Predicate seek(
+            CriteriaBuilder cb,
+            Expression<Y> key,
+            Y value,
+            Path<Long> id,
+            long lastId,
+            boolean asc,
+            boolean nullable
+    ) {
+        Predicate idAfter = asc ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId);
+        if (value == null) {
+            Predicate sameNullKey = cb.and(cb.isNull(key), idAfter);
+            return asc ? sameNullKey : cb.or(sameNullKey, cb.isNotNull(key));
+        }
+        Predicate keyAfter = asc ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+        Predicate sameKey = cb.and(cb.equal(key, value), idAfter);
+        if (nullable && asc) {
+            return cb.or(keyAfter, sameKey, cb.isNull(key));
+        }
+        return cb.or(keyAfter, sameKey);
+    }
+}
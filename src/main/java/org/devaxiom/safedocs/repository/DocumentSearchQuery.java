@@ -0,0 +1,33 @@
+package org.devaxiom.safedocs.repository;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * A client search string prepared for the database: a LIKE pattern for infix matches (served by the
+ * pg_trgm indexes) and a prefix tsquery for word matches against document.search_vector.
+ */
+public record DocumentSearchQuery(
+        String term,
+        String likePattern,
+        String tsQuery
+) {
+
+    public static DocumentSearchQuery parse(String search) {
+        if (search == null || search.isBlank()) return null;
+        String term = search.trim().toLowerCase(Locale.ROOT);
+        String likePattern = "%" + escapeLike(term) + "%";
+        String tsQuery = Arrays.stream(term.split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
+        return new DocumentSearchQuery(term, likePattern, tsQuery.isEmpty() ? null : tsQuery);
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+}
@@ -0,0 +1,117 @@
+package org.devaxiom.safedocs.repository;
+
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.devaxiom.safedocs.config.SearchFunctionContributor;
+import org.devaxiom.safedocs.enums.DocumentShareStatus;
+import org.devaxiom.safedocs.enums.DocumentStatus;
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+import org.devaxiom.safedocs.model.Document;
+import org.devaxiom.safedocs.model.DocumentAccess;
+import org.devaxiom.safedocs.model.DocumentShare;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+public final class DocumentSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private DocumentSpecifications() {
+    }
+
+    public static Specification<Document> hasPublicId(UUID publicId) {
+        return (root, query, cb) -> cb.equal(root.get("publicId"), publicId);
+    }
+
+    public static Specification<Document> hasStatus(DocumentStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Document> hasVisibility(DocumentVisibility visibility) {
+        return (root, query, cb) -> cb.equal(root.get("visibility"), visibility);
+    }
+
+    public static Specification<Document> ownedBy(Long ownerId) {
+        return (root, query, cb) -> cb.equal(root.get("owner").get("id"), ownerId);
+    }
+
+    public static Specification<Document> inFamilies(Collection<Long> familyIds) {
+        return (root, query, cb) -> root.get("family").get("id").in(familyIds);
+    }
+
+    // Semi-join on document_share, probed through (recipient_email, status, document_id); expects a normalized email.
+    public static Specification<Document> sharedWith(String recipientEmail) {
+        return (root, query, cb) -> {
+            Subquery<Long> share = query.subquery(Long.class);
+            Root<DocumentShare> ds = share.from(DocumentShare.class);
+            share.select(ds.get("id")).where(
+                    cb.equal(ds.get("document"), root),
+                    cb.equal(ds.get("recipientEmail"), recipientEmail),
+                    cb.equal(ds.get("status"), DocumentShareStatus.ACTIVE)
+            );
+            return cb.exists(share);
+        };
+    }
+
+    // Everything the user can see, as one semi-join on the document_access primary key (user_id, document_id).
+    public static Specification<Document> visibleTo(Long userId) {
+        return (root, query, cb) -> {
+            Subquery<Long> access = query.subquery(Long.class);
+            Root<DocumentAccess> da = access.from(DocumentAccess.class);
+            access.select(da.get("id").get("documentId")).where(
+                    cb.equal(da.get("id").get("userId"), userId),
+                    cb.equal(da.get("id").get("documentId"), root.get("id"))
+            );
+            return cb.exists(access);
+        };
+    }
+
+    public static Specification<Document> categoryEqualsIgnoreCase(String category) {
+        if (category == null) return null;
+        // Same normalization the category facets group on, so every facet count matches what its filter lists.
+        return (root, query, cb) -> cb.equal(cb.lower(cb.trim(root.<String>get("category"))), category.trim().toLowerCase());
+    }
+
+    public static Specification<Document> matchesSearch(DocumentSearchQuery search) {
+        if (search == null) return null;
+        return (root, query, cb) -> {
+            Expression<String> title = cb.lower(root.get("title"));
+            Expression<String> category = cb.lower(root.get("category"));
+            Expression<String> fileName = cb.lower(root.get("fileName"));
+            Predicate infix = cb.or(
+                    cb.like(title, search.likePattern(), LIKE_ESCAPE),
+                    cb.like(category, search.likePattern(), LIKE_ESCAPE),
+                    cb.like(fileName, search.likePattern(), LIKE_ESCAPE)
+            );
+            if (search.tsQuery() == null) return infix;
+            Expression<Boolean> words = cb.function(SearchFunctionContributor.FTS_MATCH, Boolean.class,
+                    root.get("id"), cb.literal(search.tsQuery()));
+            return cb.or(cb.isTrue(words), infix);
+        };
+    }
+
+    public static Specification<Document> hasSubject(UUID subjectId) {
+        if (subjectId == null) return null;
+        return (root, query, cb) -> cb.equal(root.get("subject").get("id"), subjectId);
+    }
+
+    public static Specification<Document> uncategorized(boolean uncategorized) {
+        if (!uncategorized) return null;
+        return (root, query, cb) -> cb.isNull(root.get("subject"));
+    }
+
+    public static Specification<Document> createdOnOrAfter(LocalDateTime createdAfter) {
+        if (createdAfter == null) return null;
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdDate"), createdAfter);
+    }
+
+    public static Specification<Document> createdBefore(LocalDateTime createdBefore) {
+        if (createdBefore == null) return null;
+        return (root, query, cb) -> cb.lessThan(root.get("createdDate"), createdBefore);
+    }
+}
@@ -4,10 +4,12 @@ import org.devaxiom.safedocs.enums.FamilyRole;
 import org.devaxiom.safedocs.model.Family;
 import org.devaxiom.safedocs.model.FamilyMember;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Repository
 public interface FamilyMemberRepository extends JpaRepository<FamilyMember, Long> {
@@ -19,6 +21,22 @@ public interface FamilyMemberRepository extends JpaRepository<FamilyMember, Long
 
     List<FamilyMember> findByUserIdAndActiveTrue(Long userId);
 
+    @Query("select new org.devaxiom.safedocs.repository.MembershipRow(m.user.id, m.family.id, m.role) "
+            + "from FamilyMember m where m.active = true")
+    List<MembershipRow> findActiveMembershipRows();
+
+    @Query("select new org.devaxiom.safedocs.repository.MembershipRow(m.user.id, m.family.id, m.role) "
+            + "from FamilyMember m where m.active = true and m.user.id = :userId")
+    List<MembershipRow> findActiveMembershipRowsByUserId(Long userId);
+
+    // Zero count when the user is not an active member, so callers fall back to the normal (erroring) path.
+    @Query("select new org.devaxiom.safedocs.repository.ContentVersion(count(m), "
+            + "greatest(max(m.lastModifiedDate), max(u.lastModifiedDate), max(f.lastModifiedDate))) "
+            + "from FamilyMember m join m.user u join m.family f "
+            + "where f.publicId = :familyPublicId and m.active = true "
+            + "and exists (select 1 from FamilyMember me where me.family = f and me.user.id = :userId and me.active = true)")
+    ContentVersion findProfileVersion(UUID familyPublicId, Long userId);
+
     List<FamilyMember> findByFamilyIdAndRoleAndActiveTrue(Long familyId, FamilyRole role);
 
     List<FamilyMember> findByFamilyIdAndActiveTrue(Long familyId);
@@ -0,0 +1,10 @@
+package org.devaxiom.safedocs.repository;
+
+import org.devaxiom.safedocs.enums.FamilyRole;
+
+public record MembershipRow(
+        Long userId,
+        Long familyId,
+        FamilyRole role
+) {
+}
@@ -1,11 +1,13 @@
 package org.devaxiom.safedocs.repository;
 
-import org.devaxiom.safedocs.enums.PermissionJobAction;
 import org.devaxiom.safedocs.enums.PermissionJobStatus;
 import org.devaxiom.safedocs.model.PermissionJob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,10 +19,10 @@ public interface PermissionJobRepository extends JpaRepository<PermissionJob, Lo
 
     List<PermissionJob> findByOwnerIdAndStatus(Long ownerId, PermissionJobStatus status);
 
-    Optional<PermissionJob> findByDocumentPublicIdAndOwnerIdAndTargetUserEmailAndAction(
-            UUID documentPublicId,
-            Long ownerId,
-            String targetUserEmail,
-            PermissionJobAction action
-    );
+    List<PermissionJob> findByJobIdIn(Collection<UUID> jobIds);
+
+    // Job feed: feed positions are the cursor; the family is fetched because the feed maps rows outside a persistence context.
+    @EntityGraph(attributePaths = "family")
+    List<PermissionJob> findByOwnerIdAndStatusAndFeedSeqGreaterThanOrderByFeedSeqAsc(
+            Long ownerId, PermissionJobStatus status, Long feedSeq, Limit limit);
 }
@@ -3,6 +3,7 @@ package org.devaxiom.safedocs.repository;
 import org.devaxiom.safedocs.enums.SubjectScope;
 import org.devaxiom.safedocs.model.Subject;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,6 +17,14 @@ public interface SubjectRepository extends JpaRepository<Subject, UUID> {
 
     List<Subject> findByFamilyIdAndScope(Long familyId, SubjectScope scope);
 
+    @Query("select new org.devaxiom.safedocs.repository.ContentVersion(count(s), max(s.updatedAt)) "
+            + "from Subject s where s.owner.id = :ownerId and s.scope = :scope")
+    ContentVersion findVersionByOwnerIdAndScope(Long ownerId, SubjectScope scope);
+
+    @Query("select new org.devaxiom.safedocs.repository.ContentVersion(count(s), max(s.updatedAt)) "
+            + "from Subject s where s.family.id = :familyId and s.scope = :scope")
+    ContentVersion findVersionByFamilyIdAndScope(Long familyId, SubjectScope scope);
+
     Optional<Subject> findByOwnerIdAndScopeAndNameIgnoreCase(Long ownerId, SubjectScope scope, String name);
 
     Optional<Subject> findByFamilyIdAndScopeAndNameIgnoreCase(Long familyId, SubjectScope scope, String name);
@@ -0,0 +1,17 @@
+package org.devaxiom.safedocs.repository;
+
+/**
+ * The columns request authentication needs from app_user; everything else stays on the entity.
+ */
+public record UserAuthState(
+        Long id,
+        String email,
+        String username,
+        Long tokenVersion,
+        Boolean isActive,
+        Boolean deleted
+) {
+    public boolean enabled() {
+        return !Boolean.FALSE.equals(isActive) && !Boolean.TRUE.equals(deleted);
+    }
+}
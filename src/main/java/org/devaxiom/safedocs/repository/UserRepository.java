@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -21,5 +23,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     Optional<User> findByEmail(String normalized);
 
+    List<User> findByEmailIn(Collection<String> normalized);
+
     Optional<User> findById(Long id);
+
+    @Query("select new org.devaxiom.safedocs.repository.UserAuthState(u.id, u.email, u.username, u.tokenVersion, u.isActive, u.deleted) "
+            + "from User u where u.id = :id")
+    Optional<UserAuthState> findAuthStateById(Long id);
 }
@@ -0,0 +1,31 @@
+package org.devaxiom.safedocs.security;
+
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class GoogleAuthConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HttpTransport googleHttpTransport() {
+        return new NetHttpTransport();
+    }
+
+    /**
+     * Source of Google's ID token signing keys. Caches them for the certificate response's Cache-Control max-age;
+     * replace the bean (or set {@code auth.google.certs-url}) to verify against a different issuer.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public GooglePublicKeysManager googlePublicKeysManager(HttpTransport googleHttpTransport, GoogleOAuthProperties properties) {
+        return new GooglePublicKeysManager.Builder(googleHttpTransport, GsonFactory.getDefaultInstance())
+                .setPublicCertsEncodedUrl(properties.getCertsUrl())
+                .build();
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,4 +26,29 @@ public class GoogleOAuthProperties {
      * Optional additional client IDs (e.g., web client) that are allowed to issue ID tokens.
      */
     private List<String> additionalClientIds = new ArrayList<>();
+
+    /**
+     * Where the signing certificates are fetched from; point at a local stand-in issuer in tests.
+     */
+    private String certsUrl = "https://www.googleapis.com/oauth2/v1/certs";
+
+    /**
+     * Accepted {@code iss} values.
+     */
+    private List<String> issuers = new ArrayList<>(List.of("accounts.google.com", "https://accounts.google.com"));
+
+    /**
+     * How long before the Cache-Control expiry the keys are re-fetched in the background.
+     */
+    private Duration keyRefreshAhead = Duration.ofMinutes(5);
+
+    /**
+     * How often the background task checks whether the keys are due for that re-fetch.
+     */
+    private Duration keyRefreshCheckInterval = Duration.ofMinutes(1);
+
+    /**
+     * Minimum gap between forced re-fetches when a token fails against the cached keys (possible rotation).
+     */
+    private Duration forcedRefreshInterval = Duration.ofMinutes(1);
 }
@@ -3,33 +3,50 @@ package org.devaxiom.safedocs.security;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken.Payload;
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.http.javanet.NetHttpTransport;
-import com.google.api.client.json.gson.GsonFactory;
-import lombok.RequiredArgsConstructor;
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
 import lombok.extern.slf4j.Slf4j;
 import org.devaxiom.safedocs.exception.BadRequestException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Verifies Google ID tokens with one shared verifier. Signing keys come from {@link GooglePublicKeysManager},
+ * which caches them per the certificate endpoint's Cache-Control; {@link #refreshKeys()} re-fetches them in the
+ * background shortly before that expiry so a login never waits on the fetch. A token that fails against the
+ * cached keys triggers one rate-limited re-fetch and retry, in case Google rotated keys early.
+ */
 @Component
-@RequiredArgsConstructor
 @Slf4j
 public class GoogleTokenVerifier {
 
     private final GoogleOAuthProperties properties;
+    private final GooglePublicKeysManager keys;
+    private volatile GoogleIdTokenVerifier verifier;
+    private final AtomicLong lastForcedRefresh = new AtomicLong();
+
+    public GoogleTokenVerifier(GoogleOAuthProperties properties, GooglePublicKeysManager keys) {
+        this.properties = properties;
+        this.keys = keys;
+    }
 
     public GoogleProfile verify(String idToken) {
         if (idToken == null || idToken.isBlank()) {
             throw new BadRequestException("Google ID token is required");
         }
-        GoogleIdTokenVerifier verifier = buildVerifier();
+        GoogleIdTokenVerifier verifier = verifier();
         try {
             GoogleIdToken token = verifier.verify(idToken);
+            if (token == null && forceRefresh()) {
+                token = verifier.verify(idToken);
+            }
             if (token == null) {
                 throw new BadRequestException("Invalid Google ID token");
             }
@@ -51,12 +68,22 @@ public class GoogleTokenVerifier {
                     string(payload, "picture"),
                     emailVerified
             );
-        } catch (GeneralSecurityException | java.io.IOException ex) {
+        } catch (GeneralSecurityException | IOException ex) {
             log.warn("Failed to verify Google ID token: {}", ex.getMessage());
             throw new BadRequestException("Unable to verify Google ID token");
         }
     }
 
+    // Built on first use, so a missing client ID fails Google login with a 400 rather than application startup.
+    private GoogleIdTokenVerifier verifier() {
+        GoogleIdTokenVerifier current = verifier;
+        if (current == null) {
+            current = buildVerifier();
+            verifier = current;
+        }
+        return current;
+    }
+
     private GoogleIdTokenVerifier buildVerifier() {
         List<String> audiences = new ArrayList<>();
         if (properties.getClientId() != null && !properties.getClientId().isBlank()) {
@@ -72,11 +99,40 @@ public class GoogleTokenVerifier {
         if (audiences.isEmpty()) {
             throw new BadRequestException("Google OAuth client ID is not configured");
         }
-        return new GoogleIdTokenVerifier.Builder(new NetHttpTransport(), GsonFactory.getDefaultInstance())
+        return new GoogleIdTokenVerifier.Builder(keys)
                 .setAudience(audiences)
+                .setIssuers(properties.getIssuers())
                 .build();
     }
 
+    @Scheduled(fixedDelayString = "${auth.google.key-refresh-check-interval:PT1M}")
+    public void refreshKeys() {
+        long refreshAt = keys.getExpirationTimeMilliseconds() - properties.getKeyRefreshAhead().toMillis();
+        if (keys.getClock().currentTimeMillis() < refreshAt) return;
+        try {
+            keys.refresh();
+            log.debug("Refreshed Google signing keys; next expiry at {}", keys.getExpirationTimeMilliseconds());
+        } catch (GeneralSecurityException | IOException ex) {
+            // Cached keys stay in use until they expire; the next run tries again.
+            log.warn("Failed to refresh Google signing keys: {}", ex.getMessage());
+        }
+    }
+
+    private boolean forceRefresh() {
+        long now = keys.getClock().currentTimeMillis();
+        long last = lastForcedRefresh.get();
+        if (now - last < properties.getForcedRefreshInterval().toMillis() || !lastForcedRefresh.compareAndSet(last, now)) {
+            return false;
+        }
+        try {
+            keys.refresh();
+            return true;
+        } catch (GeneralSecurityException | IOException ex) {
+            log.warn("Failed to re-fetch Google signing keys: {}", ex.getMessage());
+            return false;
+        }
+    }
+
     private String string(Payload payload, String key) {
         Object v = payload.get(key);
         return v != null ? v.toString() : null;
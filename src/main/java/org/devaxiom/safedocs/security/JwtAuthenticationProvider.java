@@ -5,7 +5,7 @@ import lombok.RequiredArgsConstructor;
 import org.devaxiom.safedocs.exception.InvalidTokenException;
 import org.devaxiom.safedocs.exception.UnauthorizedException;
 import org.devaxiom.safedocs.exception.UserNotFoundException;
-import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.repository.UserAuthState;
 import org.devaxiom.safedocs.security.JwtConfig;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -17,26 +17,37 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class JwtAuthenticationProvider {
     private final JwtService jwtService;
-    private final UserDetailsServiceImpl userDetailsService;
+    private final UserAuthStateCache userAuthStateCache;
 
     public void authenticateToken(String jwtToken, HttpServletRequest request) {
         var claims = jwtService.validate(jwtToken, JwtConfig.TOKEN_TYPE_ACCESS);
         Long userId = jwtService.getUserId(claims);
         Long tokenV = jwtService.getTokenVersion(claims);
 
-
-        User user = userDetailsService.getUserById(userId);
+        UserAuthState user = userAuthStateCache.get(userId);
+        if (user != null && !tokenV.equals(user.tokenVersion())) {
+            // A token newer than the cached state means the entry is behind; re-read before rejecting.
+            user = userAuthStateCache.reload(userId);
+        }
         if (user == null) throw new UserNotFoundException("User not found");
-        if (Boolean.FALSE.equals(user.getIsActive())) throw new UnauthorizedException("User account is disabled");
-        if (!tokenV.equals(user.getTokenVersion())) {
+        if (!user.enabled()) throw new UnauthorizedException("User account is disabled");
+        if (!tokenV.equals(user.tokenVersion())) {
             // Explicit logging to aid debugging post-logout token usage
-            throw new InvalidTokenException("Token has been revoked (tokenVersion=" + tokenV + ", current=" + user.getTokenVersion() + ")");
+            throw new InvalidTokenException("Token has been revoked (tokenVersion=" + tokenV + ", current=" + user.tokenVersion() + ")");
         }
 
         Authentication existing = SecurityContextHolder.getContext().getAuthentication();
         if (existing != null && existing.getPrincipal() instanceof UserDetailsImpl) return;
 
-        UserDetailsImpl details = UserDetailsImpl.from(user);
+        UserDetailsImpl details = new UserDetailsImpl(
+                user.id(),
+                user.email(),
+                user.username(),
+                null,
+                true,
+                false,
+                user.tokenVersion()
+        );
 
         UsernamePasswordAuthenticationToken auth =
                 new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities());
@@ -22,6 +22,10 @@ public class JwtConfig {
     private String encryptionSecret;
     private String issuer = "wiser-helpdesk";
     private int minSecretKeyLength = 64;
+    // DEFLATE-compressing claims this small saves a few bytes but costs an inflate on every verification
+    private boolean compressTokens = true;
+    // Verified access tokens kept in memory; 0 verifies every request from scratch
+    private long verifiedCacheSize = 10_000;
     public static final String TOKEN_TYPE_ACCESS = "ACCESS";
     public static final String TOKEN_TYPE_PRE_AUTH = "PRE_AUTH";
     public static final String TOKEN_TYPE_RESET = "PASSWORD_RESET";
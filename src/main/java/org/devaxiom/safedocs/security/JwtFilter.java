@@ -1,101 +1,124 @@
 package org.devaxiom.safedocs.security;
 
 import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.devaxiom.safedocs.exception.InvalidTokenException;
 import org.devaxiom.safedocs.exception.TokenExpiredException;
 import org.devaxiom.safedocs.exception.UnauthorizedException;
 import org.devaxiom.safedocs.exception.UserNotFoundException;
+import org.springframework.http.server.PathContainer;
 import org.springframework.lang.NonNull;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
-import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 import static org.devaxiom.safedocs.security.PublicEndpoints.PUBLIC_ENDPOINTS;
 
+/**
+ * Authenticates bearer tokens. This runs on every request, so it does no per-request INFO logging:
+ * outcomes are counted in {@code security.jwt.requests}, and with DEBUG enabled roughly one request in
+ * {@link #DEBUG_SAMPLE_RATE} is logged.
+ */
 @Component
-@AllArgsConstructor
 @Slf4j
 public class JwtFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+    private static final int DEBUG_SAMPLE_RATE = 100;
+    private static final List<PathPattern> PUBLIC_PATTERNS = PUBLIC_ENDPOINTS.stream()
+            .map(PathPatternParser.defaultInstance::parse)
+            .toList();
+
     private final AuthEntryPoint authEntryPoint;
     private final JwtAuthenticationProvider jwtAuthenticationProvider;
-    private final JwtService jwtService; // kept for future token operations
-    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+    private final Counter publicRequests;
+    private final Counter authenticated;
+    private final Counter missingToken;
+    private final Counter rejected;
+
+    public JwtFilter(AuthEntryPoint authEntryPoint, JwtAuthenticationProvider jwtAuthenticationProvider, MeterRegistry meterRegistry) {
+        this.authEntryPoint = authEntryPoint;
+        this.jwtAuthenticationProvider = jwtAuthenticationProvider;
+        this.publicRequests = outcome(meterRegistry, "public");
+        this.authenticated = outcome(meterRegistry, "authenticated");
+        this.missingToken = outcome(meterRegistry, "missing_token");
+        this.rejected = outcome(meterRegistry, "rejected");
+    }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain filterChain)
             throws ServletException, IOException {
         String uri = request.getRequestURI();
-        log.info("JwtFilter: request {}", uri);
-
-        String headerAuth = request.getHeader("Authorization");
-        boolean hasBearer = StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ");
-        String token = parseJwt(request);
-        boolean isDocumentsApi = uri != null && uri.startsWith("/api/documents");
-        if (isDocumentsApi) {
-            log.info("JwtFilter: documents request auth header present={}, tokenPresent={}", hasBearer, token != null);
-        }
 
         if (isPublicEndpoint(uri)) {
-            log.info("JwtFilter: Open endpoint, skipping authentication for {}", uri);
+            publicRequests.increment();
             filterChain.doFilter(request, response);
             return;
-        } else if (token == null) {
-            log.warn("JwtFilter: No JWT token found in request headers for {}", uri);
+        }
+
+        String token = parseJwt(request);
+        if (token == null) {
+            missingToken.increment();
+            if (sampled()) log.debug("JwtFilter: no bearer token for {}", uri);
             authEntryPoint.handleJwtException(response, new UnauthorizedException("No JWT token provided"));
             return;
-
         }
 
-        String authorizationHeader = this.parseJwt(request);
         try {
-            jwtAuthenticationProvider.authenticateToken(authorizationHeader, request);
-            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-            // Snapshot authorities to avoid ConcurrentModificationException if underlying collection mutates during logging
-            List<?> authoritySnapshot = auth.getAuthorities() != null ? new ArrayList<>(auth.getAuthorities()) : List.of();
-            log.info("Spring Security Authorities for '{}': {}", auth.getName(), authoritySnapshot);
-
-            log.info("JwtFilter: Authentication set in SecurityContext for user: {}", auth.getName());
-            if (isDocumentsApi) {
-                Object principal = auth.getPrincipal();
-                if (principal instanceof UserDetailsImpl details) {
-                    log.info("JwtFilter: documents auth userId={}, email={}", details.getId(), details.getEmail());
-                } else {
-                    log.info("JwtFilter: documents auth principal={}", principal != null ? principal.getClass().getSimpleName() : "null");
-                }
-            }
+            jwtAuthenticationProvider.authenticateToken(token, request);
         } catch (JwtException | UnauthorizedException | TokenExpiredException | UserNotFoundException |
                  InvalidTokenException ex) {
-            log.warn("Authentication failed: {}", ex.getMessage());
+            rejected.increment();
+            if (sampled()) log.debug("JwtFilter: authentication failed for {}: {}", uri, ex.getMessage());
             authEntryPoint.handleJwtException(response, ex);
             return;
         }
 
+        authenticated.increment();
+        if (sampled()) {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            log.debug("JwtFilter: authenticated {} for {}", auth != null ? auth.getName() : null, uri);
+        }
         filterChain.doFilter(request, response);
     }
 
     private boolean isPublicEndpoint(String uri) {
-        return PUBLIC_ENDPOINTS.stream()
-                .anyMatch(pattern -> PATH_MATCHER.match(pattern, uri));
+        if (uri == null) return false;
+        PathContainer path = PathContainer.parsePath(uri);
+        for (PathPattern pattern : PUBLIC_PATTERNS) {
+            if (pattern.matches(path)) return true;
+        }
+        return false;
     }
 
-
     private String parseJwt(HttpServletRequest request) {
         String headerAuth = request.getHeader("Authorization");
-        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer "))
-            return headerAuth.substring(7);
+        if (headerAuth != null && headerAuth.length() > BEARER.length() && headerAuth.startsWith(BEARER))
+            return headerAuth.substring(BEARER.length());
         return null;
     }
+
+    private static boolean sampled() {
+        return log.isDebugEnabled() && ThreadLocalRandom.current().nextInt(DEBUG_SAMPLE_RATE) == 0;
+    }
+
+    private static Counter outcome(MeterRegistry registry, String outcome) {
+        return Counter.builder("security.jwt.requests")
+                .description("Requests seen by the JWT filter, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
 }
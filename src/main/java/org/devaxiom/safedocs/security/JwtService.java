@@ -1,8 +1,13 @@
 package org.devaxiom.safedocs.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
@@ -16,7 +21,11 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 
@@ -28,6 +37,9 @@ public class JwtService {
     private final JwtConfig jwtConfig;
 
     private SecretKey signingKey;    // for JWS (HS512)
+    private JwtParser parser;        // thread-safe, built once
+    // Claims of tokens whose signature already checked out, keyed by SHA-256 of the token; entries leave at token expiry.
+    private Cache<ByteBuffer, Claims> verified;
 
     @PostConstruct
     void init() {
@@ -35,6 +47,13 @@ public class JwtService {
         validateSecretKey();
         // JWS signing key (HMAC-SHA512)
         this.signingKey = Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        if (jwtConfig.getVerifiedCacheSize() > 0) {
+            this.verified = Caffeine.newBuilder()
+                    .maximumSize(jwtConfig.getVerifiedCacheSize())
+                    .expireAfter(Expiry.<ByteBuffer, Claims>creating((token, claims) -> untilExpiry(claims)))
+                    .build();
+        }
         log.info("JwtService initialized (JWS signing only)");
     }
 
@@ -91,7 +110,7 @@ public class JwtService {
      */
     public Claims validate(String token, String expectedType) {
         try {
-            Claims claims = extractAllClaims(token);
+            Claims claims = verifiedClaims(token);
             validateTokenExpiry(claims);
             String type = claims.get(JwtConfig.TOKEN_TYPE, String.class);
             log.debug("Type of claims is {}", type);
@@ -118,13 +137,16 @@ public class JwtService {
         Map<String, Object> claims = createClaims(principal, tokenType);
         Instant now = Instant.now();
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
             .issuer(jwtConfig.getIssuer())
             .subject(principal.getEmail())
             .claims(claims)
             .issuedAt(Date.from(now))
-            .expiration(Date.from(now.plusMillis(duration)))
-            .compressWith(Jwts.ZIP.DEF)
+            .expiration(Date.from(now.plusMillis(duration)));
+        if (jwtConfig.isCompressTokens()) {
+            builder.compressWith(Jwts.ZIP.DEF);
+        }
+        return builder
             .signWith(signingKey, Jwts.SIG.HS512)
             .compact();
     }
@@ -151,11 +173,37 @@ public class JwtService {
      * Verifies a signed token and returns claims.
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(signingKey)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    /**
+     * {@link #extractAllClaims} for the per-request path: a token seen before skips signature verification and
+     * parsing. Revocation is unaffected since the token version is still checked against the user afterwards.
+     */
+    private Claims verifiedClaims(String token) {
+        if (verified == null || token == null) return extractAllClaims(token);
+        ByteBuffer key = ByteBuffer.wrap(sha256(token));
+        Claims claims = verified.getIfPresent(key);
+        if (claims == null) {
+            claims = extractAllClaims(token);
+            verified.put(key, claims);
+        }
+        return claims;
+    }
+
+    private static Duration untilExpiry(Claims claims) {
+        Date exp = claims.getExpiration();
+        if (exp == null) return Duration.ZERO;
+        Duration remaining = Duration.between(Instant.now(), exp.toInstant());
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    private static byte[] sha256(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     private void validateSecretKey() {
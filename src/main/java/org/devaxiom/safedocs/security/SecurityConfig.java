@@ -1,7 +1,10 @@
 package org.devaxiom.safedocs.security;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -47,6 +50,11 @@ public class SecurityConfig {
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(PUBLIC_ENDPOINTS.toArray(new String[0])).permitAll()
+                        // Streaming responses (document export) complete on an ASYNC dispatch of a request
+                        // that was already authenticated on its REQUEST dispatch.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        // Operational actuator endpoints are JMX-only; refuse them over HTTP even if exposure changes.
+                        .requestMatchers(EndpointRequest.toAnyEndpoint().excluding(HealthEndpoint.class)).denyAll()
                         .anyRequest().authenticated())
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(authEntryPoint))
                 .httpBasic(AbstractHttpConfigurer::disable)
@@ -87,7 +95,8 @@ public class SecurityConfig {
         configuration.setAllowedHeaders(List.of("*"));
         configuration.setExposedHeaders(List.of(
             "Authorization",
-            "X-Device-Id"
+            "X-Device-Id",
+            "ETag"
         ));
         configuration.setMaxAge(3600L);
 
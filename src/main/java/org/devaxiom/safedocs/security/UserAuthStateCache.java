@@ -0,0 +1,176 @@
+package org.devaxiom.safedocs.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.devaxiom.safedocs.config.UserAuthCacheProperties;
+import org.devaxiom.safedocs.repository.UserAuthState;
+import org.devaxiom.safedocs.repository.UserRepository;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded cache of the per-user state checked on every authenticated request (token version, active/deleted,
+ * and the identity fields the principal carries), so a valid JWT costs no database round trip.
+ * <p>
+ * {@link #invalidate} evicts locally once the surrounding transaction commits and issues a Postgres
+ * {@code NOTIFY} in that same transaction; every node LISTENs on the channel and evicts the user when the
+ * notification arrives, so a revocation on one node applies to all of them. If the LISTEN connection drops,
+ * the whole cache is cleared on reconnect since notifications may have been missed. The TTL is the upper bound
+ * on staleness should both fail.
+ */
+@Component
+@Slf4j
+public class UserAuthStateCache implements SmartLifecycle {
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final Cache<Long, UserAuthState> states;
+    private final UserAuthCacheProperties properties;
+    private final UserRepository userRepository;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean notifySupported;
+    private volatile boolean running;
+    private Thread listener;
+
+    public UserAuthStateCache(
+            UserAuthCacheProperties properties,
+            UserRepository userRepository,
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry
+    ) {
+        if (!CHANNEL_NAME.matcher(properties.getNotifyChannel()).matches()) {
+            throw new IllegalArgumentException("Invalid notify channel: " + properties.getNotifyChannel());
+        }
+        this.properties = properties;
+        this.userRepository = userRepository;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, states, "userAuth");
+    }
+
+    /**
+     * Current state for the user, or null when there is no such user. Absent users are not cached.
+     */
+    public UserAuthState get(Long userId) {
+        if (!properties.isEnabled()) return load(userId);
+        return states.get(userId, this::load);
+    }
+
+    /**
+     * Bypasses and refreshes the cached entry, for when a token disagrees with what is cached.
+     */
+    public UserAuthState reload(Long userId) {
+        states.invalidate(userId);
+        return get(userId);
+    }
+
+    public void invalidate(Long userId) {
+        if (userId == null) return;
+        if (notifySupported) {
+            // Delivered by Postgres only when the surrounding transaction commits.
+            jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, properties.getNotifyChannel(), userId.toString());
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    states.invalidate(userId);
+                }
+            });
+        } else {
+            states.invalidate(userId);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) return;
+        try (Connection conn = dataSource.getConnection()) {
+            notifySupported = conn.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            log.warn("Could not inspect datasource for LISTEN/NOTIFY support: {}", e.getMessage());
+        }
+        if (!notifySupported) {
+            log.info("Datasource is not PostgreSQL; user auth cache invalidation stays local to this node");
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "user-auth-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) listener.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private UserAuthState load(Long userId) {
+        return userRepository.findAuthStateById(userId).orElse(null);
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection conn = dataSource.getConnection()) {
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + properties.getNotifyChannel());
+                }
+                // Anything evicted elsewhere while we were not listening is unknown.
+                states.invalidateAll();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(1000);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) {
+                        evict(n.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("User auth LISTEN connection lost, retrying in {}: {}", properties.getReconnectDelay(), e.getMessage());
+                states.invalidateAll();
+                try {
+                    Thread.sleep(properties.getReconnectDelay().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void evict(String payload) {
+        try {
+            states.invalidate(Long.valueOf(payload));
+        } catch (NumberFormatException e) {
+            states.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.devaxiom.safedocs.security;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.devaxiom.safedocs.model.User;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops a user's cached auth state whenever the entity is updated (disable, token version, profile) or
+ * soft-deleted. Bulk JPQL updates bypass this; callers of those invalidate {@link UserAuthStateCache} themselves.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserAuthStateListener {
+
+    // Resolved lazily: the cache depends on UserRepository, which needs the entity manager factory built first.
+    private final ObjectProvider<UserAuthStateCache> userAuthStateCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        userAuthStateCache.getObject().invalidate(user.getId());
+    }
+}
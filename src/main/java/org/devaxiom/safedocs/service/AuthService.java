@@ -12,6 +12,7 @@ import org.devaxiom.safedocs.repository.UserRepository;
 import org.devaxiom.safedocs.security.GoogleTokenVerifier;
 import org.devaxiom.safedocs.security.JwtConfig;
 import org.devaxiom.safedocs.security.JwtService;
+import org.devaxiom.safedocs.security.UserAuthStateCache;
 import org.devaxiom.safedocs.security.UserDetailsImpl;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -30,6 +31,8 @@ public class AuthService {
     private final JwtService jwtService;
     private final JwtConfig jwtConfig;
     private final GoogleTokenVerifier googleTokenVerifier;
+    private final UserAuthStateCache userAuthStateCache;
+    private final DocumentAccessService documentAccessService;
 
     @Transactional
     public AuthResponse loginWithGoogle(String idToken) {
@@ -99,6 +102,8 @@ public class AuthService {
                 .providerId(profile.providerId())
                 .build();
         user = userRepository.save(user);
+        // Shares addressed to this email before sign-up become visible now.
+        documentAccessService.refreshUser(user.getId());
         log.info("Created new Google user {}", user.getEmail());
         return user;
     }
@@ -125,6 +130,15 @@ public class AuthService {
         );
     }
 
+    /**
+     * Invalidates every token issued to the user so far, on all nodes.
+     */
+    @Transactional
+    public void revokeTokens(Long userId) {
+        userRepository.incrementTokenVersion(userId);
+        userAuthStateCache.invalidate(userId);
+    }
+
     @Transactional
     public AuthResponse devLogin(String email, String secret, boolean enabled, String expectedSecret) {
         if (!enabled) {
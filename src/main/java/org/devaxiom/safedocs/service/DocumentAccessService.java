@@ -0,0 +1,190 @@
+package org.devaxiom.safedocs.service;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.devaxiom.safedocs.model.DocumentAccessId;
+import org.devaxiom.safedocs.repository.DocumentAccessRepository;
+import org.postgresql.PGConnection;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Maintains document_access, the materialized answer to "which documents can this user see", in the caller's
+ * transaction. Every refresh deletes the affected rows and re-derives them from the source of truth (document
+ * owner and visibility, active family_member rows, ACTIVE document_share rows matched to app_user by email),
+ * so a refresh is idempotent and {@link #verify(boolean)} can compare the table against the same derivation.
+ * <p>
+ * Rows are kept for every document status; readers filter on status themselves, so deleting or restoring a
+ * document needs no refresh.
+ * <p>
+ * On PostgreSQL, refreshes that could touch the same (user, document) pair take turns through transaction-scoped
+ * advisory locks: a document refresh holds the table key shared plus one key per document (in id order), a user
+ * refresh or rebuild holds the table key exclusively. Otherwise one refresh could insert a row derived from source
+ * rows that another, overlapping refresh has just changed, after that refresh's DELETE already ran.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentAccessService {
+
+    // Highest grant wins: 3 = OWNER, 2 = WRITER, 1 = READER. Each %s is a filter on one branch of the union.
+    private static final String DERIVED = """
+            SELECT g.user_id, g.document_id,
+                   CASE MAX(g.grade) WHEN 3 THEN 'OWNER' WHEN 2 THEN 'WRITER' ELSE 'READER' END AS access_level
+            FROM (SELECT d.owner_id AS user_id, d.id AS document_id, 3 AS grade
+                  FROM document d
+                  WHERE d.visibility IN ('PERSONAL', 'SHARED') AND %1$s
+                  UNION ALL
+                  SELECT fm.user_id, d.id, CASE WHEN fm.role IN ('HEAD', 'CONTRIBUTOR') THEN 2 ELSE 1 END
+                  FROM document d
+                  JOIN family_member fm ON fm.family_id = d.family_id AND fm.active = TRUE
+                  WHERE d.visibility = 'FAMILY' AND %2$s
+                  UNION ALL
+                  SELECT u.id, d.id, CASE WHEN ds.can_edit = TRUE THEN 2 ELSE 1 END
+                  FROM document d
+                  JOIN document_share ds ON ds.document_id = d.id AND ds.status = 'ACTIVE'
+                  JOIN app_user u ON lower(trim(u.email)) = ds.recipient_email
+                  WHERE d.visibility = 'SHARED' AND %3$s) g
+            GROUP BY g.user_id, g.document_id
+            """;
+
+    private static final String INSERT = "INSERT INTO document_access (user_id, document_id, access_level) ";
+    // Refreshes that take turns still derive the same row when both see it in committed source rows; the primary
+    // key is the only unique constraint, and the bare form is what H2 also accepts.
+    private static final String ON_CONFLICT = " ON CONFLICT DO NOTHING";
+    private static final String ALL = "1 = 1";
+
+    // Table key in the two-int advisory key space; document keys are the ids in the separate bigint key space.
+    private static final String LOCK_TABLE = "SELECT pg_advisory_xact_lock(1095, 0)";
+    private static final String LOCK_TABLE_SHARED = "SELECT pg_advisory_xact_lock_shared(1095, 0)";
+    private static final String LOCK_DOCUMENTS = """
+            SELECT COUNT(pg_advisory_xact_lock(l.id))
+            FROM (SELECT DISTINCT id FROM document WHERE id IN (:ids) ORDER BY id) l
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final DocumentAccessRepository documentAccessRepository;
+    private final EntityManager entityManager;
+    private volatile Boolean advisoryLocks;
+
+    public boolean canView(long userId, long documentId) {
+        return documentAccessRepository.existsById(new DocumentAccessId(userId, documentId));
+    }
+
+    /**
+     * Re-derives every grant on the given documents; call after visibility, family or share changes.
+     */
+    @Transactional
+    public void refreshDocuments(Collection<Long> documentIds) {
+        if (documentIds.isEmpty()) return;
+        flushPending();
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", documentIds);
+        if (advisoryLocks()) {
+            jdbc.query(LOCK_TABLE_SHARED, Map.of(), rs -> null);
+            jdbc.queryForObject(LOCK_DOCUMENTS, params, Long.class);
+        }
+        jdbc.update("DELETE FROM document_access WHERE document_id IN (:ids)", params);
+        jdbc.update(INSERT + DERIVED.formatted("d.id IN (:ids)", "d.id IN (:ids)", "d.id IN (:ids)") + ON_CONFLICT, params);
+    }
+
+    /**
+     * Re-derives every grant held by the user; call after their family memberships change or they sign up
+     * (shares sent to their email before that become visible).
+     */
+    @Transactional
+    public void refreshUser(long userId) {
+        flushPending();
+        lockTable();
+        MapSqlParameterSource params = new MapSqlParameterSource("userId", userId);
+        jdbc.update("DELETE FROM document_access WHERE user_id = :userId", params);
+        jdbc.update(INSERT + DERIVED.formatted("d.owner_id = :userId", "fm.user_id = :userId", "u.id = :userId") + ON_CONFLICT, params);
+    }
+
+    /**
+     * Compares the table with a fresh derivation; with {@code repair}, a drifted table is rebuilt.
+     */
+    @Transactional
+    public VerificationReport verify(boolean repair) {
+        flushPending();
+        String derived = DERIVED.formatted(ALL, ALL, ALL);
+        Map<String, Object> none = Map.of();
+        Long rows = jdbc.queryForObject("SELECT COUNT(*) FROM document_access", none, Long.class);
+        Long missing = jdbc.queryForObject("SELECT COUNT(*) FROM (" + derived
+                + " EXCEPT SELECT user_id, document_id, access_level FROM document_access) m", none, Long.class);
+        Long stale = jdbc.queryForObject("SELECT COUNT(*) FROM (SELECT user_id, document_id, access_level FROM document_access EXCEPT "
+                + derived + ") s", none, Long.class);
+        boolean drifted = missing > 0 || stale > 0;
+        if (drifted) {
+            log.warn("document_access drifted from its source rows: {} missing, {} stale", missing, stale);
+        }
+        if (drifted && repair) {
+            rebuild();
+        }
+        return new VerificationReport(rows, missing, stale, drifted && repair);
+    }
+
+    @Scheduled(fixedDelayString = "${safedocs.document-access.verify-interval:PT1H}",
+            initialDelayString = "${safedocs.document-access.verify-interval:PT1H}")
+    @Transactional
+    public void scheduledVerify() {
+        verify(true);
+    }
+
+    @Transactional
+    public int rebuild() {
+        flushPending();
+        lockTable();
+        jdbc.update("DELETE FROM document_access", Map.of());
+        int rows = jdbc.update(INSERT + DERIVED.formatted(ALL, ALL, ALL), Map.of());
+        log.info("document_access rebuilt: {} rows", rows);
+        return rows;
+    }
+
+    // Fills the table on the first start after it was introduced.
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        Boolean empty = jdbc.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM document_access)", Map.of(), Boolean.class);
+        Boolean documents = jdbc.queryForObject("SELECT EXISTS (SELECT 1 FROM document)", Map.of(), Boolean.class);
+        if (Boolean.TRUE.equals(empty) && Boolean.TRUE.equals(documents)) {
+            rebuild();
+        }
+    }
+
+    private void lockTable() {
+        if (advisoryLocks()) {
+            jdbc.query(LOCK_TABLE, Map.of(), rs -> null);
+        }
+    }
+
+    // H2 (the default test database) has no advisory locks.
+    private boolean advisoryLocks() {
+        Boolean supported = advisoryLocks;
+        if (supported == null) {
+            supported = jdbc.getJdbcTemplate().execute((ConnectionCallback<Boolean>) conn -> conn.isWrapperFor(PGConnection.class));
+            advisoryLocks = supported;
+        }
+        return Boolean.TRUE.equals(supported);
+    }
+
+    // The refresh reads source rows over JDBC, so pending entity changes of the same transaction must be written first.
+    private void flushPending() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            entityManager.flush();
+        }
+    }
+
+    public record VerificationReport(long rows, long missing, long stale, boolean repaired) {
+    }
+}
@@ -0,0 +1,109 @@
+package org.devaxiom.safedocs.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.devaxiom.safedocs.dto.document.BulkDeleteDocumentsResponse;
+import org.devaxiom.safedocs.dto.document.BulkUpdateDocumentSubjectResponse;
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+import org.devaxiom.safedocs.enums.FamilyRole;
+import org.devaxiom.safedocs.model.Document;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Modify/delete rules for documents. {@link #authorize} decides a whole set at once: the caller's role in each
+ * involved family is looked up once, then every document is decided from that map, so the cost of a bulk
+ * request does not grow with the number of documents per family.
+ */
+@Component
+@RequiredArgsConstructor
+public class DocumentAuthorizer {
+
+    public enum Action {
+        UPDATE,
+        DELETE
+    }
+
+    @Getter
+    public enum Decision {
+        ALLOWED(null),
+        NOT_OWNER("Not allowed to modify this document"),
+        NOT_SHARED_OWNER("Only owner can modify a shared document"),
+        FAMILY_NOT_CONFIGURED("Family access not configured"),
+        NOT_FAMILY_EDITOR("Only family head/contributor or owner can modify"),
+        NOT_FAMILY_HEAD("Only family head can delete a family document");
+
+        private final String message;
+
+        Decision(String message) {
+            this.message = message;
+        }
+
+        public boolean allowed() {
+            return this == ALLOWED;
+        }
+
+        public BulkUpdateDocumentSubjectResponse.BulkFailureReason toUpdateFailure() {
+            return allowed() ? null : BulkUpdateDocumentSubjectResponse.BulkFailureReason.PERMISSION_DENIED;
+        }
+
+        public BulkDeleteDocumentsResponse.BulkFailureReason toDeleteFailure() {
+            return allowed() ? null : BulkDeleteDocumentsResponse.BulkFailureReason.PERMISSION_DENIED;
+        }
+    }
+
+    private final FamilyMembershipIndex familyMembershipIndex;
+
+    public Decision decide(Document doc, Long userId, Action action) {
+        Long familyId = doc.getFamily() != null ? doc.getFamily().getId() : null;
+        FamilyRole role = familyId != null ? familyMembershipIndex.role(familyId, userId) : null;
+        return decide(doc, userId, role, action);
+    }
+
+    /**
+     * Decisions keyed by document public id, in the order given.
+     */
+    public Map<UUID, Decision> authorize(Collection<Document> docs, Long userId, Action action) {
+        Map<Long, FamilyRole> roles = new HashMap<>();
+        for (Document doc : docs) {
+            if (doc.getVisibility() == DocumentVisibility.FAMILY && doc.getFamily() != null) {
+                Long familyId = doc.getFamily().getId();
+                if (!roles.containsKey(familyId)) {
+                    roles.put(familyId, familyMembershipIndex.role(familyId, userId));
+                }
+            }
+        }
+        Map<UUID, Decision> decisions = new LinkedHashMap<>();
+        for (Document doc : docs) {
+            FamilyRole role = doc.getFamily() != null ? roles.get(doc.getFamily().getId()) : null;
+            decisions.put(doc.getPublicId(), decide(doc, userId, role, action));
+        }
+        return decisions;
+    }
+
+    private Decision decide(Document doc, Long userId, FamilyRole role, Action action) {
+        boolean owner = Objects.equals(doc.getOwner().getId(), userId);
+        if (doc.getVisibility() == DocumentVisibility.FAMILY) {
+            // Owning a family document is enough to modify it but not to delete it.
+            if (action == Action.UPDATE && owner) return Decision.ALLOWED;
+            if (doc.getFamily() == null) return Decision.FAMILY_NOT_CONFIGURED;
+            if (action == Action.DELETE) {
+                return role == FamilyRole.HEAD ? Decision.ALLOWED : Decision.NOT_FAMILY_HEAD;
+            }
+            return role == FamilyRole.HEAD || role == FamilyRole.CONTRIBUTOR ? Decision.ALLOWED : Decision.NOT_FAMILY_EDITOR;
+        }
+        if (doc.getVisibility() == DocumentVisibility.PERSONAL) {
+            return owner ? Decision.ALLOWED : Decision.NOT_OWNER;
+        }
+        if (doc.getVisibility() == DocumentVisibility.SHARED) {
+            return owner ? Decision.ALLOWED : Decision.NOT_SHARED_OWNER;
+        }
+        return Decision.ALLOWED;
+    }
+}
@@ -0,0 +1,327 @@
+package org.devaxiom.safedocs.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.devaxiom.safedocs.config.DocumentListCacheProperties;
+import org.devaxiom.safedocs.dto.document.DocumentPageResponse;
+import org.devaxiom.safedocs.event.DocumentListsChangedEvent;
+import org.devaxiom.safedocs.model.FamilyMember;
+import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.repository.FamilyMemberRepository;
+import org.devaxiom.safedocs.repository.UserRepository;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded cache of {@code GET /api/documents} pages keyed by (user, filter).
+ * Pages are grouped per user, so invalidating a user drops one entry instead of scanning the cache; the bound
+ * counts pages (each user entry weighs as many pages as it holds) and eviction drops whole users.
+ * Pages expire after the configured TTL and are evicted per user when a {@link DocumentListsChangedEvent}
+ * names them. A per-user generation guards against a read that started before an invalidation
+ * re-populating the cache with the stale page afterwards.
+ * <p>
+ * The users an event names are also published with a Postgres {@code NOTIFY} in the writing transaction; every
+ * node LISTENs and drops them when it arrives, and clears the whole cache after reconnecting, as
+ * {@link org.devaxiom.safedocs.security.UserAuthStateCache} does. The {@code document.list.cache.page.*} meters
+ * count pages; Caffeine's own {@code cache.*} meters ({@code documentListUsers}) count the per-user entries.
+ */
+@Component
+@Slf4j
+public class DocumentListCache implements SmartLifecycle {
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    // NOTIFY payloads must stay under 8000 bytes.
+    private static final int MAX_PAYLOAD = 7_900;
+
+    private final Cache<Long, Map<DocumentService.DocumentFilter, Cached>> pages;
+    private final ConcurrentHashMap<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+    // Bumped when the whole cache is dropped; part of every user's generation.
+    private final AtomicLong epoch = new AtomicLong();
+    private final Counter invalidations;
+    private final Counter pageHits;
+    private final Counter pageMisses;
+    private final Counter pageExpirations;
+    private final Counter pageEvictions;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final DocumentListCacheProperties properties;
+    private final FamilyMemberRepository familyMemberRepository;
+    private final UserRepository userRepository;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean notifySupported;
+    private volatile boolean running;
+    private Thread listener;
+
+    public DocumentListCache(
+            DocumentListCacheProperties properties,
+            MeterRegistry meterRegistry,
+            FamilyMemberRepository familyMemberRepository,
+            UserRepository userRepository,
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate
+    ) {
+        if (!CHANNEL_NAME.matcher(properties.getNotifyChannel()).matches()) {
+            throw new IllegalArgumentException("Invalid notify channel: " + properties.getNotifyChannel());
+        }
+        this.enabled = properties.isEnabled();
+        this.ttlNanos = properties.getTtl().toNanos();
+        this.properties = properties;
+        this.familyMemberRepository = familyMemberRepository;
+        this.userRepository = userRepository;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.pageHits = pageGets(meterRegistry, "hit");
+        this.pageMisses = pageGets(meterRegistry, "miss");
+        this.pageExpirations = Counter.builder("document.list.cache.page.expirations")
+                .description("Cached document list pages dropped after the TTL")
+                .register(meterRegistry);
+        this.pageEvictions = Counter.builder("document.list.cache.page.evictions")
+                .description("Cached document list pages dropped to stay within max-size")
+                .register(meterRegistry);
+        this.pages = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxSize())
+                .<Long, Map<DocumentService.DocumentFilter, Cached>>weigher((userId, byFilter) -> Math.max(1, byFilter.size()))
+                // Every put rewrites the user's entry; per-page expiry is checked on read against Cached.loadedAt.
+                .expireAfterWrite(properties.getTtl())
+                .evictionListener((Long userId, Map<DocumentService.DocumentFilter, Cached> byFilter, RemovalCause cause) -> {
+                    if (byFilter == null) return;
+                    if (cause == RemovalCause.SIZE) pageEvictions.increment(byFilter.size());
+                    if (cause == RemovalCause.EXPIRED) pageExpirations.increment(byFilter.size());
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "documentListUsers");
+        this.invalidations = Counter.builder("document.list.cache.invalidations")
+                .description("Users whose cached document list pages were dropped by a write on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Page for (user, filter) with its weak ETag, both from the cache when present. On a miss the ETag comes from
+     * {@code etagLoader} first, and when {@code notModified} accepts it the page is not loaded at all (the
+     * returned page is null). A null {@code notModified} means the caller has no conditional request.
+     */
+    public DocumentService.ListedPage get(
+            User user,
+            DocumentService.DocumentFilter filter,
+            Supplier<String> etagLoader,
+            Predicate<String> notModified,
+            Supplier<DocumentPageResponse> loader
+    ) {
+        if (!enabled) {
+            if (notModified == null) return new DocumentService.ListedPage(null, loader.get());
+            String etag = etagLoader.get();
+            return new DocumentService.ListedPage(etag, notModified.test(etag) ? null : loader.get());
+        }
+        Long userId = user.getId();
+        Map<DocumentService.DocumentFilter, Cached> byFilter = pages.getIfPresent(userId);
+        Cached cached = byFilter != null ? byFilter.get(filter) : null;
+        if (cached != null && System.nanoTime() - cached.loadedAt() < ttlNanos) {
+            pageHits.increment();
+            boolean unchanged = notModified != null && notModified.test(cached.etag());
+            return new DocumentService.ListedPage(cached.etag(), unchanged ? null : cached.page());
+        }
+        pageMisses.increment();
+
+        long generation = generation(userId);
+        String etag = etagLoader.get();
+        if (notModified != null && notModified.test(etag)) return new DocumentService.ListedPage(etag, null);
+        DocumentPageResponse loaded = loader.get();
+        Cached entry = new Cached(etag, loaded, System.nanoTime());
+        // Atomic per user: an invalidation either bumps the generation first (and the put is skipped) or
+        // removes the entry after this put.
+        pages.asMap().compute(userId, (id, current) -> {
+            if (generation != generation(userId)) return current;
+            Map<DocumentService.DocumentFilter, Cached> next = new HashMap<>();
+            if (current != null) {
+                long now = System.nanoTime();
+                current.forEach((f, c) -> {
+                    if (now - c.loadedAt() < ttlNanos) {
+                        next.put(f, c);
+                    } else {
+                        pageExpirations.increment();
+                    }
+                });
+            }
+            next.put(filter, entry);
+            return Map.copyOf(next);
+        });
+        return new DocumentService.ListedPage(etag, loaded);
+    }
+
+    // Runs in the writing transaction so the NOTIFY is sent on its commit; local eviction waits for the commit.
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDocumentListsChanged(DocumentListsChangedEvent event) {
+        if (!enabled || event.isEmpty()) return;
+        Set<Long> userIds = new HashSet<>(event.userIds());
+        for (Long familyId : event.familyIds()) {
+            for (FamilyMember member : familyMemberRepository.findByFamilyIdAndActiveTrue(familyId)) {
+                if (member.getUser() != null) userIds.add(member.getUser().getId());
+            }
+        }
+        if (!event.recipientEmails().isEmpty()) {
+            userRepository.findByEmailIn(event.recipientEmails()).forEach(u -> userIds.add(u.getId()));
+        }
+        publish(userIds);
+        afterCommit(() -> {
+            userIds.forEach(this::invalidateUser);
+            invalidations.increment(userIds.size());
+            log.debug("Invalidated document list cache for {} user(s)", userIds.size());
+        });
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) return;
+        try (Connection conn = dataSource.getConnection()) {
+            notifySupported = conn.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            log.warn("Could not inspect datasource for LISTEN/NOTIFY support: {}", e.getMessage());
+        }
+        if (!notifySupported) {
+            log.info("Datasource is not PostgreSQL; document list cache invalidation stays local to this node");
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "document-list-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) listener.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void invalidateUser(Long userId) {
+        generations.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+        pages.invalidate(userId);
+    }
+
+    private void invalidateAll() {
+        epoch.incrementAndGet();
+        pages.invalidateAll();
+    }
+
+    // Both parts only grow, so the sum changes whenever either does.
+    private long generation(Long userId) {
+        AtomicLong generation = generations.get(userId);
+        return epoch.get() + (generation != null ? generation.get() : 0L);
+    }
+
+    private void publish(Set<Long> userIds) {
+        if (!notifySupported || userIds.isEmpty()) return;
+        // Delivered by Postgres only when the surrounding transaction commits.
+        StringBuilder payload = new StringBuilder();
+        for (Long userId : userIds) {
+            if (payload.length() > MAX_PAYLOAD) {
+                notify(payload.toString());
+                payload.setLength(0);
+            }
+            if (!payload.isEmpty()) payload.append(',');
+            payload.append(userId);
+        }
+        notify(payload.toString());
+    }
+
+    private void notify(String payload) {
+        jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, properties.getNotifyChannel(), payload);
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection conn = dataSource.getConnection()) {
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + properties.getNotifyChannel());
+                }
+                // Anything invalidated elsewhere while we were not listening is unknown.
+                invalidateAll();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(1000);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) {
+                        evict(n.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Document list LISTEN connection lost, retrying in {}: {}", properties.getReconnectDelay(), e.getMessage());
+                invalidateAll();
+                try {
+                    Thread.sleep(properties.getReconnectDelay().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void evict(String payload) {
+        try {
+            for (String userId : payload.split(",")) {
+                invalidateUser(Long.valueOf(userId));
+            }
+        } catch (NumberFormatException e) {
+            invalidateAll();
+        }
+    }
+
+    private static Counter pageGets(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("document.list.cache.page.gets")
+                .description("Document list page lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    // The ETag is stored with the page so a hit answers conditional requests without the aggregate query.
+    private record Cached(String etag, DocumentPageResponse page, long loadedAt) {
+    }
+}
@@ -1,8 +1,11 @@
 package org.devaxiom.safedocs.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.devaxiom.safedocs.dto.document.CreateDocumentRequest;
+import org.devaxiom.safedocs.dto.document.DocumentFacetsResponse;
 import org.devaxiom.safedocs.dto.document.DocumentListItem;
 import org.devaxiom.safedocs.dto.document.DocumentPageResponse;
 import org.devaxiom.safedocs.dto.document.DocumentReconcileRequest;
@@ -18,6 +21,7 @@ import org.devaxiom.safedocs.dto.document.UpdateDocumentRequest;
 import org.devaxiom.safedocs.dto.document.UpdateDocumentSubjectRequest;
 import org.devaxiom.safedocs.enums.DocumentReferenceType;
 import org.devaxiom.safedocs.enums.DocumentShareStatus;
+import org.devaxiom.safedocs.enums.DocumentSortField;
 import org.devaxiom.safedocs.enums.DocumentStatus;
 import org.devaxiom.safedocs.enums.DocumentVisibility;
 import org.devaxiom.safedocs.enums.DocumentActivityAction;
@@ -25,6 +29,7 @@ import org.devaxiom.safedocs.enums.SubjectScope;
 import org.devaxiom.safedocs.enums.PermissionJobAction;
 import org.devaxiom.safedocs.enums.StorageProvider;
 import org.devaxiom.safedocs.enums.FamilyRole;
+import org.devaxiom.safedocs.event.DocumentListsChangedEvent;
 import org.devaxiom.safedocs.exception.BadRequestException;
 import org.devaxiom.safedocs.exception.ResourceNotFoundException;
 import org.devaxiom.safedocs.exception.UnauthorizedException;
@@ -34,22 +39,39 @@ import org.devaxiom.safedocs.model.Family;
 import org.devaxiom.safedocs.model.FamilyMember;
 import org.devaxiom.safedocs.model.Subject;
 import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.repository.ContentVersion;
+import org.devaxiom.safedocs.repository.DocumentCursor;
+import org.devaxiom.safedocs.repository.DocumentFacetRow;
+import org.devaxiom.safedocs.repository.DocumentListRow;
 import org.devaxiom.safedocs.repository.DocumentRepository;
+import org.devaxiom.safedocs.repository.DocumentSearchQuery;
 import org.devaxiom.safedocs.repository.DocumentShareRepository;
+import org.devaxiom.safedocs.repository.DocumentSpecifications;
 import org.devaxiom.safedocs.repository.FamilyMemberRepository;
 import org.devaxiom.safedocs.repository.FamilyRepository;
 import org.devaxiom.safedocs.repository.SubjectRepository;
 import org.devaxiom.safedocs.repository.UserRepository;
+import org.devaxiom.safedocs.util.ETags;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 import java.time.LocalDateTime;
 
 @Service
@@ -58,17 +80,26 @@ import java.time.LocalDateTime;
 public class DocumentService {
 
     private static final Sort DEFAULT_SORT = Sort.by(Sort.Direction.ASC, "title");
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final int EXPORT_FLUSH_EVERY = 500;
 
     private final DocumentRepository documentRepository;
     private final DocumentShareRepository documentShareRepository;
     private final FamilyMemberRepository familyMemberRepository;
+    private final FamilyMembershipIndex familyMembershipIndex;
+    private final DocumentAuthorizer documentAuthorizer;
+    private final DocumentAccessService documentAccessService;
     private final FamilyRepository familyRepository;
     private final SubjectRepository subjectRepository;
     private final UserRepository userRepository;
     private final PermissionJobService permissionJobService;
     private final DocumentActivityService documentActivityService;
     private final SubjectService subjectService;
+    private final DocumentListCache documentListCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
 
+    @Transactional
     public DocumentResponse upsertDocument(CreateDocumentRequest request, User currentUser) {
         if (currentUser == null) throw new UnauthorizedException("Unauthorized");
         validateCreateRequest(request);
@@ -77,6 +108,8 @@ public class DocumentService {
         Document doc = documentRepository.findByOwnerIdAndDriveFileId(currentUser.getId(), driveFileId)
                 .orElseGet(Document::new);
         boolean isNew = doc.getId() == null;
+        DocumentListsChangedEvent.DocumentListsChangedEventBuilder audience = DocumentListsChangedEvent.builder();
+        if (!isNew) addAudience(audience, doc);
 
         DocumentVisibility oldVisibility = doc.getVisibility();
         Family oldFamily = doc.getFamily();
@@ -127,8 +160,10 @@ public class DocumentService {
         doc.setSubject(newSubject);
 
         doc = documentRepository.save(doc);
+        addAudience(audience, doc);
 
         enqueueFamilyJobsOnVisibilityChange(doc, doc.getOwner(), oldVisibility, oldFamily, request.visibility(), newFamily);
+        documentAccessService.refreshDocuments(List.of(doc.getId()));
 
         if (isNew) {
             documentActivityService.record(doc, currentUser, DocumentActivityAction.UPLOAD);
@@ -137,13 +172,17 @@ public class DocumentService {
             }
         }
 
+        eventPublisher.publishEvent(audience.build());
         return toResponse(doc);
     }
 
+    @Transactional
     public DocumentResponse updateDocument(UUID documentId, UpdateDocumentRequest request, User currentUser) {
         Document doc = getActiveDocument(documentId);
         assertCanUpdate(doc, currentUser);
         enforceImmutableUpdates(request);
+        DocumentListsChangedEvent.DocumentListsChangedEventBuilder audience = DocumentListsChangedEvent.builder();
+        addAudience(audience, doc);
 
         UUID oldSubjectId = doc.getSubject() != null ? doc.getSubject().getId() : null;
 
@@ -175,8 +214,12 @@ public class DocumentService {
         doc.setSubject(newSubject);
 
         doc = documentRepository.save(doc);
+        addAudience(audience, doc);
 
         enqueueFamilyJobsOnVisibilityChange(doc, doc.getOwner(), oldVisibility, oldFamily, newVisibility, newFamily);
+        if (oldVisibility != newVisibility || !sameFamily(oldFamily, newFamily)) {
+            documentAccessService.refreshDocuments(List.of(doc.getId()));
+        }
 
         UUID newSubjectId = doc.getSubject() != null ? doc.getSubject().getId() : null;
         if (!Objects.equals(oldSubjectId, newSubjectId)) {
@@ -189,6 +232,7 @@ public class DocumentService {
             }
         }
 
+        eventPublisher.publishEvent(audience.build());
         return toResponse(doc);
     }
 
@@ -225,6 +269,7 @@ public class DocumentService {
             subjectService.touchDocumentActivity(doc.getSubject());
         }
 
+        publishListsChanged(doc);
         return toResponse(doc);
     }
 
@@ -245,6 +290,7 @@ public class DocumentService {
         Subject newSubject = resolveSubjectForDocument(doc.getVisibility(), doc.getFamily(), subjectId, currentUser);
         doc.setSubject(newSubject);
         doc = documentRepository.save(doc);
+        publishListsChanged(doc);
 
         UUID newSubjectId = doc.getSubject() != null ? doc.getSubject().getId() : null;
         if (!Objects.equals(oldSubjectId, newSubjectId)) {
@@ -274,8 +320,12 @@ public class DocumentService {
             byId.put(doc.getPublicId(), doc);
         }
 
+        Map<UUID, DocumentAuthorizer.Decision> decisions =
+                documentAuthorizer.authorize(docs, currentUser.getId(), DocumentAuthorizer.Action.UPDATE);
+
         List<UUID> updated = new ArrayList<>();
         List<BulkUpdateDocumentSubjectResponse.Failure> failed = new ArrayList<>();
+        DocumentListsChangedEvent.DocumentListsChangedEventBuilder audience = DocumentListsChangedEvent.builder();
 
         for (UUID id : ids) {
             Document doc = byId.get(id);
@@ -283,14 +333,19 @@ public class DocumentService {
                 failed.add(new BulkUpdateDocumentSubjectResponse.Failure(id, BulkUpdateDocumentSubjectResponse.BulkFailureReason.NOT_FOUND));
                 continue;
             }
+            DocumentAuthorizer.Decision decision = decisions.get(id);
+            if (!decision.allowed()) {
+                failed.add(new BulkUpdateDocumentSubjectResponse.Failure(id, decision.toUpdateFailure()));
+                continue;
+            }
             try {
-                assertCanUpdate(doc, currentUser);
                 UUID oldSubjectId = doc.getSubject() != null ? doc.getSubject().getId() : null;
                 Subject newSubject = resolveSubjectForDocument(doc.getVisibility(), doc.getFamily(), request.subjectId(), currentUser);
                 doc.setSubject(newSubject);
 
                 doc = documentRepository.save(doc);
                 updated.add(id);
+                addAudience(audience, doc);
 
                 UUID newSubjectId = doc.getSubject() != null ? doc.getSubject().getId() : null;
                 if (!Objects.equals(oldSubjectId, newSubjectId)) {
@@ -309,9 +364,11 @@ public class DocumentService {
             }
         }
 
+        eventPublisher.publishEvent(audience.build());
         return new BulkUpdateDocumentSubjectResponse(updated, failed);
     }
 
+    @Transactional
     public BulkDeleteDocumentsResponse bulkDeleteDocuments(BulkDeleteDocumentsRequest request, User currentUser) {
         if (currentUser == null) throw new UnauthorizedException("Unauthorized");
         if (request == null || request.documentIds() == null || request.documentIds().isEmpty()) {
@@ -326,8 +383,13 @@ public class DocumentService {
             byId.put(doc.getPublicId(), doc);
         }
 
+        Map<UUID, DocumentAuthorizer.Decision> decisions =
+                documentAuthorizer.authorize(docs, currentUser.getId(), DocumentAuthorizer.Action.DELETE);
+
         List<UUID> deleted = new ArrayList<>();
+        List<Long> revokedShares = new ArrayList<>();
         List<BulkDeleteDocumentsResponse.Failure> failed = new ArrayList<>();
+        DocumentListsChangedEvent.DocumentListsChangedEventBuilder audience = DocumentListsChangedEvent.builder();
 
         for (UUID id : ids) {
             Document doc = byId.get(id);
@@ -335,28 +397,32 @@ public class DocumentService {
                 failed.add(new BulkDeleteDocumentsResponse.Failure(id, BulkDeleteDocumentsResponse.BulkFailureReason.NOT_FOUND));
                 continue;
             }
-            try {
-                assertCanDelete(doc, currentUser);
+            DocumentAuthorizer.Decision decision = decisions.get(id);
+            if (!decision.allowed()) {
+                failed.add(new BulkDeleteDocumentsResponse.Failure(id, decision.toDeleteFailure()));
+                continue;
+            }
+            addAudience(audience, doc);
 
-                if (doc.getVisibility() == DocumentVisibility.FAMILY) {
-                    enqueueFamilyJobs(doc, doc.getOwner(), doc.getFamily(), PermissionJobAction.REVOKE);
-                } else if (doc.getVisibility() == DocumentVisibility.SHARED) {
-                    enqueueShareJobs(doc, doc.getOwner(), PermissionJobAction.REVOKE);
-                }
+            if (doc.getVisibility() == DocumentVisibility.FAMILY) {
+                enqueueFamilyJobs(doc, doc.getOwner(), doc.getFamily(), PermissionJobAction.REVOKE);
+            } else if (doc.getVisibility() == DocumentVisibility.SHARED) {
+                enqueueShareJobs(doc, doc.getOwner(), PermissionJobAction.REVOKE);
+                revokedShares.add(doc.getId());
+            }
 
-                doc.setStatus(DocumentStatus.DELETED_OR_REVOKED);
-                documentRepository.save(doc);
-                deleted.add(id);
+            doc.setStatus(DocumentStatus.DELETED_OR_REVOKED);
+            documentRepository.save(doc);
+            deleted.add(id);
 
-                documentActivityService.record(doc, currentUser, DocumentActivityAction.DELETE);
-                if (doc.getSubject() != null) {
-                    subjectService.touchDocumentActivity(doc.getSubject());
-                }
-            } catch (UnauthorizedException ex) {
-                failed.add(new BulkDeleteDocumentsResponse.Failure(id, BulkDeleteDocumentsResponse.BulkFailureReason.PERMISSION_DENIED));
+            documentActivityService.record(doc, currentUser, DocumentActivityAction.DELETE);
+            if (doc.getSubject() != null) {
+                subjectService.touchDocumentActivity(doc.getSubject());
             }
         }
 
+        documentAccessService.refreshDocuments(revokedShares);
+        eventPublisher.publishEvent(audience.build());
         return new BulkDeleteDocumentsResponse(deleted, failed);
     }
 
@@ -371,46 +437,163 @@ public class DocumentService {
     }
 
     public List<DocumentListItem> listPersonal(User user) {
-        List<Document> docs = documentRepository.findByOwnerIdAndVisibilityAndStatus(
+        return documentRepository.findListItemsByOwner(
                 user.getId(), DocumentVisibility.PERSONAL, DocumentStatus.ACTIVE, DEFAULT_SORT);
-        return docs.stream().map(this::toListItem).toList();
     }
 
     public List<DocumentListItem> listFamily(User user) {
-        List<FamilyMember> memberships = familyMemberRepository.findByUserIdAndActiveTrue(user.getId());
-        if (memberships.isEmpty()) return List.of();
-        List<Long> familyIds = memberships.stream().map(m -> m.getFamily().getId()).toList();
-        List<Document> docs = documentRepository.findByFamilyIdInAndStatus(familyIds, DocumentStatus.ACTIVE, DEFAULT_SORT);
-        return docs.stream().filter(d -> d.getVisibility() == DocumentVisibility.FAMILY).map(this::toListItem).toList();
+        List<Long> familyIds = familyMembershipIndex.familyIds(user.getId());
+        if (familyIds.isEmpty()) return List.of();
+        return documentRepository.findListItemsByFamilies(
+                familyIds, DocumentVisibility.FAMILY, DocumentStatus.ACTIVE, DEFAULT_SORT);
     }
 
     public List<DocumentListItem> listSharedBy(User user) {
-        List<Document> docs = documentRepository.findByOwnerIdAndVisibilityAndStatus(
+        return documentRepository.findListItemsByOwner(
                 user.getId(), DocumentVisibility.SHARED, DocumentStatus.ACTIVE, DEFAULT_SORT);
-        return docs.stream().map(this::toListItem).toList();
     }
 
-    public DocumentPageResponse listSharedWith(User user, int page, int size, String search) {
-        String email = normalizeEmail(user.getEmail());
-        List<DocumentShare> shares = documentShareRepository.findByRecipientEmailAndStatus(
-                email, DocumentShareStatus.ACTIVE);
-        List<Document> docs = shares.stream()
-                .map(DocumentShare::getDocument)
-                .filter(doc -> doc.getStatus() == DocumentStatus.ACTIVE)
-                .filter(doc -> matchesSearch(doc, search))
+    /**
+     * Writes every ACTIVE document the user can access (personal, family and shared with them) as NDJSON,
+     * one {@link DocumentListItem} per line, reading from a database cursor so memory does not grow with the catalogue.
+     */
+    @Transactional(readOnly = true)
+    public void exportDocuments(User user, OutputStream out) throws IOException {
+        Specification<Document> spec = Specification.allOf(
+                DocumentSpecifications.visibleTo(user.getId()),
+                DocumentSpecifications.hasStatus(DocumentStatus.ACTIVE)
+        );
+        ObjectWriter writer = objectMapper.writerFor(DocumentListItem.class);
+        try (Stream<DocumentListRow> rows = documentRepository.streamRows(spec, EXPORT_FETCH_SIZE)) {
+            Iterator<DocumentListRow> it = rows.iterator();
+            int written = 0;
+            while (it.hasNext()) {
+                out.write(writer.writeValueAsBytes(it.next().toItem()));
+                out.write('\n');
+                if (++written % EXPORT_FLUSH_EVERY == 0) out.flush();
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Sidebar counts in one grouped aggregate: documents per visibility across all of the user's scopes, plus
+     * per-category, per-subject and uncategorized counts within {@code visibility} (all scopes when null).
+     */
+    public DocumentFacetsResponse facets(User user, DocumentVisibility visibility, UUID familyId) {
+        if (familyId != null && visibility != null && visibility != DocumentVisibility.FAMILY) {
+            throw new BadRequestException("familyId is only allowed with visibility=FAMILY");
+        }
+        Specification<Document> spec = Specification.allOf(
+                DocumentSpecifications.visibleTo(user.getId()),
+                DocumentSpecifications.hasStatus(DocumentStatus.ACTIVE),
+                familyId != null ? onlyFamilyDocumentsOf(resolveFamilyScope(familyId, user)) : null
+        );
+
+        Map<DocumentVisibility, Long> visibilities = new EnumMap<>(DocumentVisibility.class);
+        for (DocumentVisibility v : DocumentVisibility.values()) visibilities.put(v, 0L);
+        Map<String, String> categoryNames = new HashMap<>();
+        Map<String, Long> categoryCounts = new HashMap<>();
+        Map<UUID, Long> subjectCounts = new HashMap<>();
+        long uncategorized = 0;
+        long total = 0;
+
+        for (DocumentFacetRow row : documentRepository.countFacets(spec)) {
+            long count = row.count();
+            visibilities.merge(row.visibility(), count, Long::sum);
+            if (visibility != null && row.visibility() != visibility) continue;
+            total += count;
+            if (row.category() != null && !row.category().isBlank()) {
+                // Category filtering is case-insensitive, so facet on the lower-cased value and show the first spelling seen
+                String key = row.category().trim().toLowerCase();
+                categoryNames.putIfAbsent(key, row.category().trim());
+                categoryCounts.merge(key, count, Long::sum);
+            }
+            if (row.subjectId() != null) {
+                subjectCounts.merge(row.subjectId(), count, Long::sum);
+            } else {
+                uncategorized += count;
+            }
+        }
+
+        List<DocumentFacetsResponse.CategoryCount> categories = categoryCounts.entrySet().stream()
+                .map(e -> new DocumentFacetsResponse.CategoryCount(categoryNames.get(e.getKey()), e.getValue()))
+                .sorted(Comparator.comparingLong(DocumentFacetsResponse.CategoryCount::count).reversed()
+                        .thenComparing(DocumentFacetsResponse.CategoryCount::category, String.CASE_INSENSITIVE_ORDER))
+                .toList();
+        List<DocumentFacetsResponse.SubjectCount> subjects = subjectCounts.entrySet().stream()
+                .map(e -> new DocumentFacetsResponse.SubjectCount(e.getKey(), e.getValue()))
+                .sorted(Comparator.comparingLong(DocumentFacetsResponse.SubjectCount::count).reversed())
                 .toList();
+        return new DocumentFacetsResponse(visibilities, categories, subjects, uncategorized, total);
+    }
 
-        int pageIndex = Math.max(0, page);
-        int pageSize = size <= 0 ? 20 : size;
-        int from = pageIndex * pageSize;
-        int to = Math.min(from + pageSize, docs.size());
-        List<DocumentListItem> items = from >= docs.size()
-                ? List.of()
-                : docs.subList(from, to).stream().map(this::toListItem).toList();
-        return new DocumentPageResponse(items, pageIndex, pageSize, docs.size());
+    public DocumentPageResponse listSharedWith(
+            User user,
+            int page,
+            int size,
+            String search,
+            DocumentSortField sort,
+            Sort.Direction direction,
+            String cursor
+    ) {
+        DocumentSearchQuery searchQuery = DocumentSearchQuery.parse(search);
+        Specification<Document> spec = Specification.allOf(
+                DocumentSpecifications.sharedWith(normalizeEmail(user.getEmail())),
+                DocumentSpecifications.hasStatus(DocumentStatus.ACTIVE),
+                DocumentSpecifications.matchesSearch(searchQuery)
+        );
+        return pageOf(spec, searchQuery, page, size, sort, direction, cursor);
     }
 
     public DocumentPageResponse listWithFilters(DocumentFilter filter, User user) {
+        return listWithFilters(filter, user, null).page();
+    }
+
+    /**
+     * Page and weak ETag for a conditional list request, served together from the list cache. Only on a cache
+     * miss is the ETag computed with {@link #listEtag}; the page is then loaded unless {@code notModified}
+     * accepts it, in which case the returned page is null.
+     */
+    public ListedPage listWithFilters(DocumentFilter filter, User user, Predicate<String> notModified) {
+        return documentListCache.get(user, filter, () -> listEtag(filter, user), notModified,
+                () -> loadWithFilters(filter, user));
+    }
+
+    /**
+     * Weak ETag for {@link #listWithFilters}: the filter plus count and newest modification of the matching
+     * documents, from one indexed aggregate instead of loading the page.
+     */
+    private String listEtag(DocumentFilter filter, User user) {
+        Specification<Document> spec = listSpec(filter, user);
+        ContentVersion version = spec != null ? documentRepository.contentVersion(spec) : new ContentVersion(0L, null);
+        return ETags.weak(user.getId(), filter, version);
+    }
+
+    /**
+     * Weak ETag for {@link #getDocument}, or null when the document is missing or not visible to the user
+     * so the caller takes the normal path and gets the usual error.
+     */
+    public String documentEtag(UUID documentId, User user) {
+        ContentVersion version = documentRepository.contentVersion(Specification.allOf(
+                DocumentSpecifications.hasPublicId(documentId),
+                DocumentSpecifications.hasStatus(DocumentStatus.ACTIVE),
+                DocumentSpecifications.visibleTo(user.getId())
+        ));
+        return version.isEmpty() ? null : ETags.weak(documentId, version);
+    }
+
+    private DocumentPageResponse loadWithFilters(DocumentFilter filter, User user) {
+        Specification<Document> spec = listSpec(filter, user);
+        if (spec == null) {
+            return new DocumentPageResponse(List.of(), Math.max(0, filter.page), pageSize(filter.size), 0);
+        }
+        DocumentSearchQuery searchQuery = DocumentSearchQuery.parse(filter.search);
+        return pageOf(spec, searchQuery, filter.page, filter.size, filter.sort, filter.direction, filter.cursor);
+    }
+
+    // Validates the filter and returns its predicate, or null when the user has no family to scope a FAMILY list to.
+    private Specification<Document> listSpec(DocumentFilter filter, User user) {
         if (filter.visibility == null) throw new BadRequestException("visibility is required");
 
         if (filter.subjectId != null && filter.uncategorized) {
@@ -418,78 +601,116 @@ public class DocumentService {
         }
         validateSubjectFilter(filter, user);
 
-        List<Document> base = switch (filter.visibility) {
-            case PERSONAL -> {
-                if (filter.createdAfter != null && filter.createdBefore != null) {
-                    yield documentRepository.findByOwnerIdAndVisibilityAndStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
-                            user.getId(), DocumentVisibility.PERSONAL, DocumentStatus.ACTIVE, filter.createdAfter, filter.createdBefore, DEFAULT_SORT);
-                }
-                yield documentRepository.findByOwnerIdAndVisibilityAndStatus(
-                        user.getId(), DocumentVisibility.PERSONAL, DocumentStatus.ACTIVE, DEFAULT_SORT);
-            }
-            case FAMILY -> {
-                List<FamilyMember> memberships = familyMemberRepository.findByUserIdAndActiveTrue(user.getId());
-                if (memberships.isEmpty()) yield List.of();
-                List<Long> familyIds = memberships.stream()
-                        .map(m -> m.getFamily().getId())
-                        .toList();
-                if (filter.familyId != null) {
-                    Family family = familyRepository.findByPublicId(filter.familyId)
-                            .orElseThrow(() -> new BadRequestException("Family not found"));
-                    if (!familyIds.contains(family.getId())) {
-                        throw new UnauthorizedException("Not a member of this family");
-                    }
-                    familyIds = List.of(family.getId());
-                }
-                List<Document> raw;
-                if (filter.createdAfter != null && filter.createdBefore != null) {
-                    raw = documentRepository.findByFamilyIdInAndStatusAndCreatedDateGreaterThanEqualAndCreatedDateLessThan(
-                            familyIds, DocumentStatus.ACTIVE, filter.createdAfter, filter.createdBefore, DEFAULT_SORT);
-                } else {
-                    raw = documentRepository.findByFamilyIdInAndStatus(familyIds, DocumentStatus.ACTIVE, DEFAULT_SORT);
-                }
-                yield raw
-                        .stream()
-                        .filter(d -> d.getVisibility() == DocumentVisibility.FAMILY)
-                        .toList();
-            }
-            case SHARED -> {
-                List<Document> owned = documentRepository.findByOwnerIdAndVisibilityAndStatus(
-                        user.getId(), DocumentVisibility.SHARED, DocumentStatus.ACTIVE, DEFAULT_SORT);
-                List<DocumentShare> shares = documentShareRepository.findByRecipientEmailAndStatus(
-                        normalizeEmail(user.getEmail()), DocumentShareStatus.ACTIVE);
-                List<Document> withMe = shares.stream()
-                        .map(DocumentShare::getDocument)
-                        .filter(doc -> doc.getStatus() == DocumentStatus.ACTIVE)
-                        .toList();
-                Set<Document> combined = new HashSet<>();
-                combined.addAll(owned);
-                combined.addAll(withMe);
-                yield combined.stream().sorted((a, b) -> a.getTitle().compareToIgnoreCase(b.getTitle())).toList();
-            }
-        };
+        Specification<Document> scope;
+        if (filter.visibility == DocumentVisibility.PERSONAL) {
+            scope = DocumentSpecifications.ownedBy(user.getId())
+                    .and(DocumentSpecifications.hasVisibility(DocumentVisibility.PERSONAL));
+        } else if (filter.visibility == DocumentVisibility.SHARED) {
+            // The user's own SHARED documents plus those shared with them: their document_access rows on SHARED documents
+            scope = DocumentSpecifications.visibleTo(user.getId())
+                    .and(DocumentSpecifications.hasVisibility(DocumentVisibility.SHARED));
+        } else {
+            List<Long> familyIds = resolveFamilyScope(filter.familyId, user);
+            if (familyIds.isEmpty()) return null;
+            scope = DocumentSpecifications.inFamilies(familyIds)
+                    .and(DocumentSpecifications.hasVisibility(DocumentVisibility.FAMILY));
+        }
 
-        List<Document> filtered = base.stream()
-                .filter(d -> filter.category == null || (d.getCategory() != null && d.getCategory().equalsIgnoreCase(filter.category)))
-                .filter(d -> filter.search == null || matchesSearch(d, filter.search))
-            .filter(d -> filter.subjectId == null || (d.getSubject() != null && Objects.equals(d.getSubject().getId(), filter.subjectId)))
-            .filter(d -> !filter.uncategorized || d.getSubject() == null)
-                .toList();
+        return Specification.allOf(
+                scope,
+                DocumentSpecifications.hasStatus(DocumentStatus.ACTIVE),
+                DocumentSpecifications.categoryEqualsIgnoreCase(filter.category),
+                DocumentSpecifications.matchesSearch(DocumentSearchQuery.parse(filter.search)),
+                DocumentSpecifications.hasSubject(filter.subjectId),
+                DocumentSpecifications.uncategorized(filter.uncategorized),
+                DocumentSpecifications.createdOnOrAfter(filter.createdAfter),
+                DocumentSpecifications.createdBefore(filter.createdBefore)
+        );
+    }
+
+    private DocumentPageResponse pageOf(
+            Specification<Document> spec,
+            DocumentSearchQuery search,
+            int page,
+            int size,
+            DocumentSortField sort,
+            Sort.Direction direction,
+            String cursor
+    ) {
+        int pageIndex = Math.max(0, page);
+        int pageSize = pageSize(size);
+        DocumentSortField resolvedSort = sort != null
+                ? sort
+                : search != null ? DocumentSortField.RELEVANCE : DocumentSortField.TITLE;
+        boolean relevance = resolvedSort == DocumentSortField.RELEVANCE;
+        if (relevance && search == null) {
+            throw new BadRequestException("sort=RELEVANCE requires search");
+        }
+        Sort.Direction resolvedDirection = direction != null
+                ? direction
+                : relevance ? Sort.Direction.DESC : Sort.Direction.ASC;
+        if (relevance && cursor != null && !cursor.isBlank()) {
+            throw new BadRequestException("cursor is not supported for sort=RELEVANCE; use page");
+        }
+        DocumentCursor after = decodeCursor(cursor, resolvedSort, resolvedDirection);
+
+        long total = documentRepository.count(spec);
+        List<DocumentListRow> rows = documentRepository.findPage(
+                spec, search, resolvedSort, resolvedDirection, after, pageIndex * pageSize, pageSize + 1);
 
-        int page = Math.max(0, filter.page);
-        int size = filter.size <= 0 ? 20 : filter.size;
-        int from = page * size;
-        int to = Math.min(from + size, filtered.size());
-        List<DocumentListItem> items = from >= filtered.size()
-                ? List.of()
-                : filtered.subList(from, to).stream().map(this::toListItem).toList();
+        boolean hasMore = rows.size() > pageSize;
+        List<DocumentListRow> pageRows = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore && !relevance
+                ? DocumentCursor.after(pageRows.get(pageRows.size() - 1), resolvedSort, resolvedDirection).encode()
+                : null;
 
-        return new DocumentPageResponse(items, page, size, filtered.size());
+        List<DocumentListItem> items = pageRows.stream().map(DocumentListRow::toItem).toList();
+        return new DocumentPageResponse(items, pageIndex, pageSize, total, nextCursor);
     }
 
+    private DocumentCursor decodeCursor(String cursor, DocumentSortField sort, Sort.Direction direction) {
+        if (cursor == null || cursor.isBlank()) return null;
+        DocumentCursor decoded;
+        try {
+            decoded = DocumentCursor.decode(cursor.trim());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        if (decoded.sort() != sort || decoded.direction() != direction) {
+            throw new BadRequestException("cursor does not match the requested sort order");
+        }
+        return decoded;
+    }
+
+    private int pageSize(int size) {
+        return size <= 0 ? 20 : size;
+    }
+
+    // Keeps personal and shared documents, and family documents only from the given families.
+    private Specification<Document> onlyFamilyDocumentsOf(List<Long> familyIds) {
+        Specification<Document> nonFamily = Specification.not(DocumentSpecifications.hasVisibility(DocumentVisibility.FAMILY));
+        return familyIds.isEmpty() ? nonFamily : nonFamily.or(DocumentSpecifications.inFamilies(familyIds));
+    }
+
+    private List<Long> resolveFamilyScope(UUID familyPublicId, User user) {
+        List<Long> familyIds = familyMembershipIndex.familyIds(user.getId());
+        if (familyIds.isEmpty()) return List.of();
+        if (familyPublicId == null) return familyIds;
+
+        Family family = familyRepository.findByPublicId(familyPublicId)
+                .orElseThrow(() -> new BadRequestException("Family not found"));
+        if (!familyIds.contains(family.getId())) {
+            throw new UnauthorizedException("Not a member of this family");
+        }
+        return List.of(family.getId());
+    }
+
+    @Transactional
     public void deleteDocument(UUID documentId, User user) {
         Document doc = getActiveDocument(documentId);
         assertCanDelete(doc, user);
+        DocumentListsChangedEvent.DocumentListsChangedEventBuilder audience = DocumentListsChangedEvent.builder();
+        addAudience(audience, doc);
 
         Subject subject = doc.getSubject();
 
@@ -501,12 +722,17 @@ public class DocumentService {
 
         doc.setStatus(DocumentStatus.DELETED_OR_REVOKED);
         documentRepository.save(doc);
+        if (doc.getVisibility() == DocumentVisibility.SHARED) {
+            documentAccessService.refreshDocuments(List.of(doc.getId()));
+        }
         documentActivityService.record(doc, user, DocumentActivityAction.DELETE);
         if (subject != null) {
             subjectService.touchDocumentActivity(subject);
         }
+        eventPublisher.publishEvent(audience.build());
     }
 
+    @Transactional
     public List<DocumentShareResponse> addShares(UUID documentId, List<String> emails, User currentUser) {
         Document doc = getActiveDocument(documentId);
         assertOwnerForShared(doc, currentUser);
@@ -523,6 +749,7 @@ public class DocumentService {
                 .toList();
     }
 
+    @Transactional
     public void removeShare(UUID documentId, Long shareId, User currentUser) {
         Document doc = getActiveDocument(documentId);
         assertOwnerForShared(doc, currentUser);
@@ -530,19 +757,27 @@ public class DocumentService {
                 .orElseThrow(() -> new ResourceNotFoundException("Share entry not found"));
         share.setStatus(DocumentShareStatus.REVOKED);
         documentShareRepository.save(share);
+        documentAccessService.refreshDocuments(List.of(doc.getId()));
         permissionJobService.enqueueJob(doc, doc.getOwner(), share.getRecipientEmail(), PermissionJobAction.REVOKE, null);
+        eventPublisher.publishEvent(DocumentListsChangedEvent.builder()
+                .userId(doc.getOwner().getId())
+                .recipientEmail(share.getRecipientEmail())
+                .build());
     }
 
     public DocumentReconcileResponse reconcile(DocumentReconcileRequest request, User currentUser) {
         int updated = 0;
+        DocumentListsChangedEvent.DocumentListsChangedEventBuilder audience = DocumentListsChangedEvent.builder();
         for (DocumentReconcileRequest.MissingDocument missing : request.missing()) {
             Document doc = resolveDocumentForReconcile(missing, currentUser);
             if (doc != null && doc.getStatus() != DocumentStatus.DELETED_OR_REVOKED) {
                 doc.setStatus(DocumentStatus.DELETED_OR_REVOKED);
                 documentRepository.save(doc);
+                addAudience(audience, doc);
                 updated++;
             }
         }
+        eventPublisher.publishEvent(audience.build());
         return new DocumentReconcileResponse(updated);
     }
 
@@ -568,6 +803,7 @@ public class DocumentService {
             throw new BadRequestException("Sharing allowed only for SHARED documents");
         }
         List<DocumentShareResponse> created = new ArrayList<>();
+        List<PermissionJobService.JobSpec> jobs = new ArrayList<>();
         for (String emailRaw : emails) {
             if (emailRaw == null || emailRaw.isBlank()) continue;
             String email = normalizeEmail(emailRaw);
@@ -592,7 +828,15 @@ public class DocumentService {
             share = documentShareRepository.save(share);
             created.add(new DocumentShareResponse(share.getId(), share.getRecipientEmail(),
                     Boolean.TRUE.equals(share.getCanEdit()), share.getStatus()));
-            permissionJobService.enqueueJob(doc, doc.getOwner(), email, PermissionJobAction.GRANT, null);
+            jobs.add(PermissionJobService.JobSpec.of(doc, doc.getOwner(), email, PermissionJobAction.GRANT, null));
+        }
+        permissionJobService.enqueueAll(jobs);
+        if (!created.isEmpty()) {
+            documentAccessService.refreshDocuments(List.of(doc.getId()));
+            DocumentListsChangedEvent.DocumentListsChangedEventBuilder audience = DocumentListsChangedEvent.builder()
+                    .userId(doc.getOwner().getId());
+            created.forEach(share -> audience.recipientEmail(share.recipientEmail()));
+            eventPublisher.publishEvent(audience.build());
         }
         return created;
     }
@@ -605,75 +849,28 @@ public class DocumentService {
 
     private void assertCanView(Document doc, User user) {
         if (user == null) throw new UnauthorizedException("Unauthorized");
-        switch (doc.getVisibility()) {
-            case PERSONAL -> {
-                if (!Objects.equals(doc.getOwner().getId(), user.getId())) {
-                    throw new UnauthorizedException("Not allowed to view this document");
-                }
-            }
-            case FAMILY -> {
-                Family family = doc.getFamily();
-                if (family == null) throw new UnauthorizedException("Family access not configured");
-                boolean member = familyMemberRepository.findByFamilyIdAndUserIdAndActiveTrue(family.getId(), user.getId()).isPresent();
-                if (!member) throw new UnauthorizedException("Not allowed to view this family document");
-            }
-            case SHARED -> {
-                if (Objects.equals(doc.getOwner().getId(), user.getId())) return;
-                String email = normalizeEmail(user.getEmail());
-                boolean shared = documentShareRepository.existsByDocumentIdAndRecipientEmailAndStatus(
-                        doc.getId(), email, DocumentShareStatus.ACTIVE);
-                if (!shared) throw new UnauthorizedException("Not allowed to view this shared document");
-            }
-            default -> throw new UnauthorizedException("Unknown visibility");
+        if (!documentAccessService.canView(user.getId(), doc.getId())) {
+            throw new UnauthorizedException("Not allowed to view this document");
         }
     }
 
     private void assertCanUpdate(Document doc, User user) {
-        if (user == null) throw new UnauthorizedException("Unauthorized");
-        if (doc.getVisibility() == DocumentVisibility.PERSONAL) {
-            if (!Objects.equals(doc.getOwner().getId(), user.getId())) {
-                throw new UnauthorizedException("Not allowed to modify this document");
-            }
-            return;
-        }
-        if (doc.getVisibility() == DocumentVisibility.FAMILY) {
-            if (Objects.equals(doc.getOwner().getId(), user.getId())) return;
-            Family family = doc.getFamily();
-            if (family == null) throw new UnauthorizedException("Family access not configured");
-            boolean canEdit = familyMemberRepository.existsByFamilyIdAndUserIdAndActiveTrueAndRoleIn(
-                    family.getId(),
-                    user.getId(),
-                    List.of(FamilyRole.HEAD, FamilyRole.CONTRIBUTOR)
-            );
-            if (!canEdit) throw new UnauthorizedException("Only family head/contributor or owner can modify");
-            return;
-        }
-        if (doc.getVisibility() == DocumentVisibility.SHARED) {
-            if (!Objects.equals(doc.getOwner().getId(), user.getId())) {
-                throw new UnauthorizedException("Only owner can modify a shared document");
-            }
-        }
+        assertAllowed(doc, user, DocumentAuthorizer.Action.UPDATE);
     }
 
     private void assertCanDelete(Document doc, User user) {
+        assertAllowed(doc, user, DocumentAuthorizer.Action.DELETE);
+    }
+
+    private void assertAllowed(Document doc, User user, DocumentAuthorizer.Action action) {
         if (user == null) throw new UnauthorizedException("Unauthorized");
-        if (doc.getVisibility() != DocumentVisibility.FAMILY) {
-            assertCanUpdate(doc, user);
-            return;
-        }
-        Family family = doc.getFamily();
-        if (family == null) throw new UnauthorizedException("Family access not configured");
-        boolean isHead = familyMemberRepository.existsByFamilyIdAndUserIdAndActiveTrueAndRoleIn(
-                family.getId(),
-                user.getId(),
-                List.of(FamilyRole.HEAD)
-        );
-        if (!isHead) throw new UnauthorizedException("Only family head can delete a family document");
+        DocumentAuthorizer.Decision decision = documentAuthorizer.decide(doc, user.getId(), action);
+        if (!decision.allowed()) throw new UnauthorizedException(decision.getMessage());
     }
 
     private void assertCanCreateOrUpdateFamilyDocument(Family family, User user) {
         if (family == null) throw new BadRequestException("familyId is required for FAMILY documents");
-        boolean canEdit = familyMemberRepository.existsByFamilyIdAndUserIdAndActiveTrueAndRoleIn(
+        boolean canEdit = familyMembershipIndex.hasRole(
                 family.getId(),
                 user.getId(),
                 List.of(FamilyRole.HEAD, FamilyRole.CONTRIBUTOR)
@@ -752,28 +949,29 @@ public class DocumentService {
     private void enqueueFamilyJobs(Document doc, User owner, Family family, PermissionJobAction action) {
         if (family == null) return;
         List<FamilyMember> members = familyMemberRepository.findByFamilyIdAndActiveTrue(family.getId());
+        List<PermissionJobService.JobSpec> jobs = new ArrayList<>(members.size());
         for (FamilyMember member : members) {
             if (member.getUser() == null || member.getUser().getEmail() == null) continue;
-            String email = normalizeEmail(member.getUser().getEmail());
-            if (email == null) continue;
-            if (owner.getEmail() != null && email.equalsIgnoreCase(owner.getEmail())) continue;
-            permissionJobService.enqueueJob(doc, owner, email, action, family);
+            jobs.add(PermissionJobService.JobSpec.of(doc, owner, member.getUser().getEmail(), action, family));
         }
+        permissionJobService.enqueueAll(jobs);
     }
 
     private void enqueueShareJobs(Document doc, User owner, PermissionJobAction action) {
         List<DocumentShare> shares = documentShareRepository.findByDocumentIdAndStatus(doc.getId(), DocumentShareStatus.ACTIVE);
+        List<PermissionJobService.JobSpec> jobs = new ArrayList<>(shares.size());
         for (DocumentShare share : shares) {
             if (share.getRecipientEmail() == null) continue;
             String email = normalizeEmail(share.getRecipientEmail());
             if (email == null) continue;
             if (owner.getEmail() != null && email.equalsIgnoreCase(owner.getEmail())) continue;
-            permissionJobService.enqueueJob(doc, owner, email, action, null);
+            jobs.add(PermissionJobService.JobSpec.of(doc, owner, email, action, null));
             if (action == PermissionJobAction.REVOKE) {
                 share.setStatus(DocumentShareStatus.REVOKED);
                 documentShareRepository.save(share);
             }
         }
+        permissionJobService.enqueueAll(jobs);
     }
 
     private Family resolveFamilyForVisibility(DocumentVisibility visibility, UUID familyPublicId, User user, Document doc) {
@@ -795,6 +993,23 @@ public class DocumentService {
         return null;
     }
 
+    private void publishListsChanged(Document doc) {
+        DocumentListsChangedEvent.DocumentListsChangedEventBuilder audience = DocumentListsChangedEvent.builder();
+        addAudience(audience, doc);
+        eventPublisher.publishEvent(audience.build());
+    }
+
+    // Everyone whose lists can show this document in its current state: owner, family members, share recipients.
+    // Call before and after a change that moves the document between audiences.
+    private void addAudience(DocumentListsChangedEvent.DocumentListsChangedEventBuilder audience, Document doc) {
+        if (doc.getOwner() != null) audience.userId(doc.getOwner().getId());
+        if (doc.getFamily() != null) audience.familyId(doc.getFamily().getId());
+        if (doc.getVisibility() == DocumentVisibility.SHARED && doc.getId() != null) {
+            documentShareRepository.findByDocumentIdAndStatus(doc.getId(), DocumentShareStatus.ACTIVE)
+                    .forEach(share -> audience.recipientEmail(share.getRecipientEmail()));
+        }
+    }
+
     private DocumentResponse toResponse(Document doc) {
         return new DocumentResponse(
                 doc.getPublicId(),
@@ -818,31 +1033,6 @@ public class DocumentService {
         );
     }
 
-    private boolean matchesSearch(Document doc, String search) {
-        if (search == null || search.isBlank()) return true;
-        String term = search.trim().toLowerCase();
-        return (doc.getTitle() != null && doc.getTitle().toLowerCase().contains(term))
-                || (doc.getCategory() != null && doc.getCategory().toLowerCase().contains(term))
-                || (doc.getFileName() != null && doc.getFileName().toLowerCase().contains(term));
-    }
-
-    private DocumentListItem toListItem(Document doc) {
-        return new DocumentListItem(
-                doc.getPublicId(),
-                doc.getDriveFileId(),
-                doc.getFileName(),
-                doc.getTitle(),
-                doc.getMimeType(),
-                doc.getSizeBytes(),
-                doc.getVisibility(),
-                doc.getCategory(),
-                doc.getFamily() != null ? doc.getFamily().getPublicId() : null,
-                doc.getSubject() != null ? doc.getSubject().getId() : null,
-                doc.getReferenceType(),
-                doc.getStatus()
-        );
-    }
-
     private String normalizeEmail(String email) {
         return email == null ? null : email.trim().toLowerCase();
     }
@@ -865,7 +1055,7 @@ public class DocumentService {
     private Family requireFamilyMembership(UUID familyPublicId, User user) {
         Family family = familyRepository.findByPublicId(familyPublicId)
                 .orElseThrow(() -> new BadRequestException("Family not found"));
-        boolean member = familyMemberRepository.findByFamilyIdAndUserIdAndActiveTrue(family.getId(), user.getId()).isPresent();
+        boolean member = familyMembershipIndex.isMember(family.getId(), user.getId());
         if (!member) {
             throw new UnauthorizedException("Not a member of the selected family");
         }
@@ -885,7 +1075,7 @@ public class DocumentService {
             if (subject.getFamily() == null) {
                 throw new BadRequestException("Subject is missing family association");
             }
-            boolean member = familyMemberRepository.findByFamilyIdAndUserIdAndActiveTrue(subject.getFamily().getId(), user.getId()).isPresent();
+            boolean member = familyMembershipIndex.isMember(subject.getFamily().getId(), user.getId());
             if (!member) {
                 throw new UnauthorizedException("Not allowed to filter by this subject");
             }
@@ -933,6 +1123,9 @@ public class DocumentService {
         return subject;
     }
 
+    public record ListedPage(String etag, DocumentPageResponse page) {
+    }
+
     public record DocumentFilter(
             DocumentVisibility visibility,
             String category,
@@ -943,7 +1136,10 @@ public class DocumentService {
             UUID subjectId,
             boolean uncategorized,
             LocalDateTime createdAfter,
-            LocalDateTime createdBefore
+            LocalDateTime createdBefore,
+            DocumentSortField sort,
+            Sort.Direction direction,
+            String cursor
     ) {
     }
 }
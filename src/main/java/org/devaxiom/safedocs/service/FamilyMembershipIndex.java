@@ -0,0 +1,455 @@
+package org.devaxiom.safedocs.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.devaxiom.safedocs.config.MembershipIndexProperties;
+import org.devaxiom.safedocs.enums.FamilyRole;
+import org.devaxiom.safedocs.repository.FamilyMemberRepository;
+import org.devaxiom.safedocs.repository.MembershipRow;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory copy of the active family memberships: user id -> (family id, role), so authorization checks
+ * don't query family_member. Loaded at startup, kept current by {@link FamilyService} writes (applied after
+ * commit), and compared against the database by {@link #verify(boolean)} on a schedule or on demand.
+ * <p>
+ * Each user's memberships are an immutable pair of parallel primitive arrays sorted by family id, replaced
+ * wholesale on change, so reads are lock-free binary searches. Changes are serialized by a write lock. A
+ * (re)load builds a new map off to the side and swaps it in under that lock; users and families written
+ * while the snapshot was being read keep their live entries, since those writes are at least as new.
+ * <p>
+ * Every write also issues a Postgres {@code NOTIFY} in its transaction. Each node LISTENs and re-reads the
+ * named user (or drops the named family) when it arrives, and reloads everything after reconnecting.
+ */
+@Component
+@Slf4j
+public class FamilyMembershipIndex implements SmartLifecycle {
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final FamilyRole[] ROLES = FamilyRole.values();
+    private static final Memberships NONE = new Memberships(new long[0], new byte[0]);
+
+    private final FamilyMemberRepository familyMemberRepository;
+    private final MembershipIndexProperties properties;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    // Serializes loads and repairs; a lock rather than synchronized since they do JDBC and would pin a virtual
+    // thread's carrier.
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile ConcurrentHashMap<Long, Memberships> byUser = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    // Written since the current rebuild started reading its snapshot; null when no rebuild runs. Guarded by writeLock.
+    private Set<Long> touchedUsers;
+    private Set<Long> touchedFamilies;
+    // The same for the user the listener is re-reading; null when none is. Guarded by writeLock.
+    private Long refreshing;
+    private boolean refreshingTouched;
+    private Set<Long> refreshingDroppedFamilies;
+    private volatile boolean notifySupported;
+    private volatile boolean running;
+    private Thread listener;
+
+    public FamilyMembershipIndex(
+            FamilyMemberRepository familyMemberRepository,
+            MembershipIndexProperties properties,
+            DataSource dataSource,
+            JdbcTemplate jdbcTemplate
+    ) {
+        if (!CHANNEL_NAME.matcher(properties.getNotifyChannel()).matches()) {
+            throw new IllegalArgumentException("Invalid notify channel: " + properties.getNotifyChannel());
+        }
+        this.familyMemberRepository = familyMemberRepository;
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loadLock.lock();
+        try {
+            int users = rebuild(true).users();
+            loaded = true;
+            log.info("Family membership index loaded: {} users", users);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    public boolean isMember(long familyId, long userId) {
+        return role(familyId, userId) != null;
+    }
+
+    public boolean hasRole(long familyId, long userId, Collection<FamilyRole> roles) {
+        FamilyRole role = role(familyId, userId);
+        return role != null && roles.contains(role);
+    }
+
+    public FamilyRole role(long familyId, long userId) {
+        Memberships m = memberships(userId);
+        int i = Arrays.binarySearch(m.familyIds, familyId);
+        return i >= 0 ? ROLES[m.roles[i]] : null;
+    }
+
+    public List<Long> familyIds(long userId) {
+        long[] ids = memberships(userId).familyIds;
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) result.add(id);
+        return result;
+    }
+
+    public void grant(long familyId, long userId, FamilyRole role) {
+        publish("u:" + userId);
+        afterCommit(() -> update(userId, current -> with(current, familyId, role)));
+    }
+
+    public void revoke(long familyId, long userId) {
+        publish("u:" + userId);
+        afterCommit(() -> update(userId, current -> without(current, familyId)));
+    }
+
+    public void revokeFamily(long familyId) {
+        publish("f:" + familyId);
+        afterCommit(() -> dropFamily(familyId));
+    }
+
+    /**
+     * Compares the index with family_member and returns the differences. With {@code repair}, a drifted index
+     * is replaced by the database state.
+     */
+    public VerificationReport verify(boolean repair) {
+        loadLock.lock();
+        try {
+            return rebuild(repair);
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${safedocs.membership-index.verify-interval:PT10M}",
+            initialDelayString = "${safedocs.membership-index.verify-interval:PT10M}")
+    public void scheduledVerify() {
+        if (loaded) verify(true);
+    }
+
+    @Override
+    public void start() {
+        try (Connection conn = dataSource.getConnection()) {
+            notifySupported = conn.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            log.warn("Could not inspect datasource for LISTEN/NOTIFY support: {}", e.getMessage());
+        }
+        if (!notifySupported) {
+            log.info("Datasource is not PostgreSQL; family membership changes stay local to this node");
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "membership-index-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) listener.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private Memberships memberships(long userId) {
+        if (!loaded) {
+            loadLock.lock();
+            try {
+                if (!loaded) load();
+            } finally {
+                loadLock.unlock();
+            }
+        }
+        return byUser.getOrDefault(userId, NONE);
+    }
+
+    // Caller holds loadLock. Reads the snapshot without blocking writers, then compares and (with install)
+    // swaps it in under writeLock, leaving anything written in between as it is.
+    private VerificationReport rebuild(boolean install) {
+        writeLock.lock();
+        try {
+            touchedUsers = new HashSet<>();
+            touchedFamilies = new HashSet<>();
+        } finally {
+            writeLock.unlock();
+        }
+        Map<Long, Memberships> expected;
+        try {
+            expected = snapshot();
+        } catch (RuntimeException e) {
+            writeLock.lock();
+            try {
+                touchedUsers = null;
+                touchedFamilies = null;
+            } finally {
+                writeLock.unlock();
+            }
+            throw e;
+        }
+        writeLock.lock();
+        try {
+            Map<Long, Memberships> live = byUser;
+            ConcurrentHashMap<Long, Memberships> next = new ConcurrentHashMap<>(Math.max(16, expected.size() * 2));
+            expected.forEach((userId, m) -> {
+                if (touchedUsers.contains(userId)) return;
+                for (long familyId : touchedFamilies) {
+                    if (m != null) m = without(m, familyId);
+                }
+                if (m != null) next.put(userId, m);
+            });
+            for (Long userId : touchedUsers) {
+                Memberships m = live.get(userId);
+                if (m != null) next.put(userId, m);
+            }
+            int missing = 0;
+            int stale = 0;
+            for (Map.Entry<Long, Memberships> e : next.entrySet()) {
+                Memberships actual = live.getOrDefault(e.getKey(), NONE);
+                missing += countNotIn(e.getValue(), actual);
+                stale += countNotIn(actual, e.getValue());
+            }
+            for (Map.Entry<Long, Memberships> e : live.entrySet()) {
+                if (!next.containsKey(e.getKey())) stale += e.getValue().familyIds.length;
+            }
+            boolean drifted = missing > 0 || stale > 0;
+            if (drifted && loaded) {
+                log.warn("Family membership index drifted from the database: {} missing, {} stale", missing, stale);
+            }
+            if (install) byUser = next;
+            int total = next.values().stream().mapToInt(m -> m.familyIds.length).sum();
+            return new VerificationReport(next.size(), total, missing, stale, drifted && install);
+        } finally {
+            touchedUsers = null;
+            touchedFamilies = null;
+            writeLock.unlock();
+        }
+    }
+
+    private void update(long userId, UnaryOperator<Memberships> change) {
+        writeLock.lock();
+        try {
+            if (touchedUsers != null) touchedUsers.add(userId);
+            if (refreshing != null && refreshing == userId) refreshingTouched = true;
+            byUser.compute(userId, (id, current) -> change.apply(current != null ? current : NONE));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void dropFamily(long familyId) {
+        writeLock.lock();
+        try {
+            if (touchedFamilies != null) touchedFamilies.add(familyId);
+            if (refreshingDroppedFamilies != null) refreshingDroppedFamilies.add(familyId);
+            byUser.keySet().forEach(userId ->
+                    byUser.computeIfPresent(userId, (id, current) -> without(current, familyId)));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Re-reads one user's memberships without holding writeLock, then applies them under it unless the user was
+    // written locally meanwhile: that write is at least as new, and its own notification re-reads the user again.
+    // Families dropped meanwhile are removed from what was read. Only the listener thread calls this.
+    private void refreshUser(long userId) {
+        writeLock.lock();
+        try {
+            refreshing = userId;
+            refreshingTouched = false;
+            refreshingDroppedFamilies = new HashSet<>();
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            Memberships m = NONE;
+            for (MembershipRow row : familyMemberRepository.findActiveMembershipRowsByUserId(userId)) {
+                m = with(m, row.familyId(), row.role());
+            }
+            writeLock.lock();
+            try {
+                if (refreshingTouched) return;
+                for (long familyId : refreshingDroppedFamilies) {
+                    if (m != null) m = without(m, familyId);
+                }
+                Memberships fresh = m;
+                update(userId, current -> fresh == null || fresh.familyIds.length == 0 ? null : fresh);
+            } finally {
+                writeLock.unlock();
+            }
+        } finally {
+            writeLock.lock();
+            try {
+                refreshing = null;
+                refreshingDroppedFamilies = null;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void publish(String payload) {
+        if (notifySupported) {
+            // Delivered by Postgres only when the surrounding transaction commits.
+            jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, properties.getNotifyChannel(), payload);
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection conn = dataSource.getConnection()) {
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + properties.getNotifyChannel());
+                }
+                // Anything changed elsewhere while we were not listening is unknown.
+                if (loaded) load();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(1000);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) {
+                        apply(n.getParameter());
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) return;
+                log.warn("Membership index LISTEN connection lost, retrying in {}: {}",
+                        properties.getReconnectDelay(), e.getMessage());
+                try {
+                    Thread.sleep(properties.getReconnectDelay().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    void apply(String payload) {
+        try {
+            long id = Long.parseLong(payload.substring(2));
+            if (payload.startsWith("u:")) {
+                refreshUser(id);
+                return;
+            }
+            if (payload.startsWith("f:")) {
+                dropFamily(id);
+                return;
+            }
+        } catch (RuntimeException e) {
+            // fall through to a full reload
+        }
+        load();
+    }
+
+    private Map<Long, Memberships> snapshot() {
+        Map<Long, List<MembershipRow>> rowsByUser = new HashMap<>();
+        for (MembershipRow row : familyMemberRepository.findActiveMembershipRows()) {
+            rowsByUser.computeIfAbsent(row.userId(), id -> new ArrayList<>()).add(row);
+        }
+        Map<Long, Memberships> snapshot = new HashMap<>(rowsByUser.size() * 2);
+        rowsByUser.forEach((userId, rows) -> {
+            Memberships m = NONE;
+            for (MembershipRow row : rows) {
+                m = with(m, row.familyId(), row.role());
+            }
+            snapshot.put(userId, m);
+        });
+        return snapshot;
+    }
+
+    private static Memberships with(Memberships m, long familyId, FamilyRole role) {
+        int i = Arrays.binarySearch(m.familyIds, familyId);
+        if (i >= 0) {
+            byte[] roles = m.roles.clone();
+            roles[i] = (byte) role.ordinal();
+            return new Memberships(m.familyIds, roles);
+        }
+        int at = -i - 1;
+        long[] ids = new long[m.familyIds.length + 1];
+        byte[] roles = new byte[ids.length];
+        System.arraycopy(m.familyIds, 0, ids, 0, at);
+        System.arraycopy(m.roles, 0, roles, 0, at);
+        ids[at] = familyId;
+        roles[at] = (byte) role.ordinal();
+        System.arraycopy(m.familyIds, at, ids, at + 1, m.familyIds.length - at);
+        System.arraycopy(m.roles, at, roles, at + 1, m.roles.length - at);
+        return new Memberships(ids, roles);
+    }
+
+    // Returns null when nothing is left so compute drops the user.
+    private static Memberships without(Memberships m, long familyId) {
+        int i = Arrays.binarySearch(m.familyIds, familyId);
+        if (i < 0) return m;
+        if (m.familyIds.length == 1) return null;
+        long[] ids = new long[m.familyIds.length - 1];
+        byte[] roles = new byte[ids.length];
+        System.arraycopy(m.familyIds, 0, ids, 0, i);
+        System.arraycopy(m.roles, 0, roles, 0, i);
+        System.arraycopy(m.familyIds, i + 1, ids, i, ids.length - i);
+        System.arraycopy(m.roles, i + 1, roles, i, roles.length - i);
+        return new Memberships(ids, roles);
+    }
+
+    private static int countNotIn(Memberships source, Memberships other) {
+        int count = 0;
+        for (int i = 0; i < source.familyIds.length; i++) {
+            int j = Arrays.binarySearch(other.familyIds, source.familyIds[i]);
+            if (j < 0 || other.roles[j] != source.roles[i]) count++;
+        }
+        return count;
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private record Memberships(long[] familyIds, byte[] roles) {
+    }
+
+    public record VerificationReport(int users, int memberships, int missing, int stale, boolean repaired) {
+    }
+}
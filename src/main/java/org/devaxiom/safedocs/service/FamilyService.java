@@ -14,6 +14,7 @@ import org.devaxiom.safedocs.enums.DocumentVisibility;
 import org.devaxiom.safedocs.enums.FamilyInviteStatus;
 import org.devaxiom.safedocs.enums.FamilyRole;
 import org.devaxiom.safedocs.enums.PermissionJobAction;
+import org.devaxiom.safedocs.event.DocumentListsChangedEvent;
 import org.devaxiom.safedocs.exception.BadRequestException;
 import org.devaxiom.safedocs.exception.ResourceNotFoundException;
 import org.devaxiom.safedocs.model.Document;
@@ -21,16 +22,20 @@ import org.devaxiom.safedocs.model.Family;
 import org.devaxiom.safedocs.model.FamilyInvite;
 import org.devaxiom.safedocs.model.FamilyMember;
 import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.repository.ContentVersion;
 import org.devaxiom.safedocs.repository.DocumentRepository;
 import org.devaxiom.safedocs.repository.FamilyInviteRepository;
 import org.devaxiom.safedocs.repository.FamilyMemberRepository;
 import org.devaxiom.safedocs.repository.FamilyRepository;
 import org.devaxiom.safedocs.repository.UserRepository;
 import org.devaxiom.safedocs.mail.EmailService;
+import org.devaxiom.safedocs.util.ETags;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
@@ -43,11 +48,14 @@ public class FamilyService {
 
     private final FamilyRepository familyRepository;
     private final FamilyMemberRepository familyMemberRepository;
+    private final FamilyMembershipIndex familyMembershipIndex;
+    private final DocumentAccessService documentAccessService;
     private final UserRepository userRepository;
     private final FamilyInviteRepository familyInviteRepository;
     private final DocumentRepository documentRepository;
     private final PermissionJobService permissionJobService;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<FamilySummaryResponse> listFamilies(User user) {
@@ -83,9 +91,20 @@ public class FamilyService {
                 .active(true)
                 .build();
         familyMemberRepository.save(head);
+        familyMembershipIndex.grant(family.getId(), user.getId(), FamilyRole.HEAD);
         return new FamilySummaryResponse(family.getPublicId(), family.getName(), FamilyRole.HEAD, 1);
     }
 
+    /**
+     * Weak ETag for {@link #getFamilyProfile}, or null when the user is not a member (the normal path reports that).
+     * Covers the family, its active memberships and the member users in one aggregate.
+     */
+    @Transactional(readOnly = true)
+    public String profileEtag(UUID familyPublicId, User user) {
+        ContentVersion version = familyMemberRepository.findProfileVersion(familyPublicId, user.getId());
+        return version == null || version.isEmpty() ? null : ETags.weak(familyPublicId, version);
+    }
+
     @Transactional(readOnly = true)
     public FamilyProfileResponse getFamilyProfile(UUID familyPublicId, User user) {
         Family family = requireMembership(familyPublicId, user);
@@ -167,12 +186,15 @@ public class FamilyService {
                     .active(true)
                     .build();
             familyMemberRepository.save(member);
+            familyMembershipIndex.grant(family.getId(), currentUser.getId(), FamilyRole.VIEWER);
+            documentAccessService.refreshUser(currentUser.getId());
         }
         invite.setStatus(FamilyInviteStatus.ACCEPTED);
         familyInviteRepository.save(invite);
 
         // Enqueue GRANT jobs for all FAMILY documents in this family
         enqueueJobsForFamilyDocs(family, normalizeEmail(currentUser.getEmail()), PermissionJobAction.GRANT);
+        eventPublisher.publishEvent(DocumentListsChangedEvent.builder().userId(currentUser.getId()).build());
 
         return toResponse(currentUser, FamilyRole.VIEWER, true);
     }
@@ -200,6 +222,8 @@ public class FamilyService {
 
         member.setRole(desired);
         familyMemberRepository.save(member);
+        familyMembershipIndex.grant(family.getId(), memberUserId, desired);
+        documentAccessService.refreshUser(memberUserId);
 
         return toResponse(member);
     }
@@ -249,6 +273,9 @@ public class FamilyService {
 
         member.setActive(false);
         familyMemberRepository.save(member);
+        familyMembershipIndex.revoke(headMembership.getFamily().getId(), memberUserId);
+        documentAccessService.refreshUser(memberUserId);
+        eventPublisher.publishEvent(DocumentListsChangedEvent.builder().userId(memberUserId).build());
     }
 
     @Transactional
@@ -267,6 +294,9 @@ public class FamilyService {
 
         membership.setActive(false);
         familyMemberRepository.save(membership);
+        familyMembershipIndex.revoke(family.getId(), currentUser.getId());
+        documentAccessService.refreshUser(currentUser.getId());
+        eventPublisher.publishEvent(DocumentListsChangedEvent.builder().userId(currentUser.getId()).build());
     }
 
     @Transactional
@@ -281,6 +311,7 @@ public class FamilyService {
         List<FamilyMember> members = familyMemberRepository.findByFamilyId(family.getId());
         familyMemberRepository.deleteAll(members);
         familyMemberRepository.flush();
+        familyMembershipIndex.revokeFamily(family.getId());
 
         // remove invites
         List<FamilyInvite> invites = familyInviteRepository.findByFamilyId(family.getId());
@@ -289,6 +320,7 @@ public class FamilyService {
 
         // Revoke access for all family members across all FAMILY docs
         List<Document> docs = documentRepository.findByFamilyId(family.getId());
+        List<PermissionJobService.JobSpec> jobs = new ArrayList<>();
         for (Document d : docs) {
             if (d.getVisibility() != DocumentVisibility.FAMILY) continue;
             if (d.getStatus() != DocumentStatus.ACTIVE) continue;
@@ -296,9 +328,10 @@ public class FamilyService {
                 if (member.getUser() == null) continue;
                 String email = normalizeEmail(member.getUser().getEmail());
                 if (email == null) continue;
-                permissionJobService.enqueueJob(d, d.getOwner(), email, PermissionJobAction.REVOKE, family);
+                jobs.add(PermissionJobService.JobSpec.of(d, d.getOwner(), email, PermissionJobAction.REVOKE, family));
             }
         }
+        permissionJobService.enqueueAll(jobs);
 
         // Convert family docs back to PERSONAL ownership and detach FK
         docs.forEach(d -> {
@@ -309,20 +342,29 @@ public class FamilyService {
         });
         documentRepository.saveAll(docs);
         documentRepository.flush();
+        documentAccessService.refreshDocuments(docs.stream().map(Document::getId).toList());
 
         familyRepository.delete(family);
+
+        // Members are gone by commit time, so name them explicitly rather than by family
+        DocumentListsChangedEvent.DocumentListsChangedEventBuilder audience = DocumentListsChangedEvent.builder();
+        activeMembers.stream().filter(m -> m.getUser() != null).forEach(m -> audience.userId(m.getUser().getId()));
+        docs.forEach(d -> audience.userId(d.getOwner().getId()));
+        eventPublisher.publishEvent(audience.build());
     }
 
     private void enqueueJobsForFamilyDocs(Family family, String targetEmail, PermissionJobAction action) {
         if (family == null) return;
         if (targetEmail == null || targetEmail.isBlank()) return;
         List<Document> docs = documentRepository.findByFamilyId(family.getId());
+        List<PermissionJobService.JobSpec> jobs = new ArrayList<>(docs.size());
         for (Document doc : docs) {
             if (doc.getVisibility() != DocumentVisibility.FAMILY) continue;
             if (doc.getStatus() != DocumentStatus.ACTIVE) continue;
             if (doc.getOwner() == null) continue;
-            permissionJobService.enqueueJob(doc, doc.getOwner(), targetEmail, action, family);
+            jobs.add(PermissionJobService.JobSpec.of(doc, doc.getOwner(), targetEmail, action, family));
         }
+        permissionJobService.enqueueAll(jobs);
     }
 
     private Family requireMembership(UUID familyPublicId, User user) {
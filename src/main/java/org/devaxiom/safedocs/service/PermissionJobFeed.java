@@ -0,0 +1,185 @@
+package org.devaxiom.safedocs.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.devaxiom.safedocs.config.PermissionJobProperties;
+import org.devaxiom.safedocs.dto.permission.PermissionJobFeedResponse;
+import org.devaxiom.safedocs.dto.permission.PermissionJobResponse;
+import org.devaxiom.safedocs.enums.PermissionJobStatus;
+import org.devaxiom.safedocs.model.PermissionJob;
+import org.devaxiom.safedocs.repository.PermissionJobRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Push delivery of jobs as they become PENDING (enqueued, or returned by the lease reaper), as a long-poll and
+ * as a server-sent event stream. Both read forward from a cursor (the job's feed position) and wait on
+ * {@link PermissionJobNotifier} instead of polling, so an idle client holds no request thread and costs no
+ * queries until something is enqueued for it. Feed positions are handed out per owner in commit order, so a
+ * job can never become visible below a cursor that was already returned.
+ */
+@Component
+@Slf4j
+public class PermissionJobFeed {
+
+    private final PermissionJobRepository permissionJobRepository;
+    private final PermissionJobService permissionJobService;
+    private final PermissionJobNotifier permissionJobNotifier;
+    private final PermissionJobProperties properties;
+    private final TaskScheduler taskScheduler;
+    // Reads triggered by signals; signals arrive on the LISTEN thread or a committing request thread, which must not block.
+    private final ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PermissionJobFeed(
+            PermissionJobRepository permissionJobRepository,
+            PermissionJobService permissionJobService,
+            PermissionJobNotifier permissionJobNotifier,
+            PermissionJobProperties properties,
+            TaskScheduler taskScheduler
+    ) {
+        this.permissionJobRepository = permissionJobRepository;
+        this.permissionJobService = permissionJobService;
+        this.permissionJobNotifier = permissionJobNotifier;
+        this.properties = properties;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Jobs after {@code since}; when there are none yet, completes as soon as some are enqueued or after
+     * {@code timeout} (capped at {@code max-poll-timeout}) with an empty list and the same cursor.
+     */
+    public CompletableFuture<PermissionJobFeedResponse> poll(Long ownerId, long since, Duration timeout) {
+        Duration wait = timeout.compareTo(properties.getMaxPollTimeout()) > 0 ? properties.getMaxPollTimeout() : timeout;
+        CompletableFuture<Void> signal = new CompletableFuture<>();
+        // Subscribe before the first read so a commit between the two is not missed.
+        PermissionJobNotifier.Subscription subscription = permissionJobNotifier.subscribe(ownerId, () -> signal.complete(null));
+        PermissionJobFeedResponse current;
+        try {
+            current = read(ownerId, since);
+        } catch (RuntimeException e) {
+            subscription.close();
+            throw e;
+        }
+        if (!current.jobs().isEmpty() || wait.isZero() || wait.isNegative()) {
+            subscription.close();
+            return CompletableFuture.completedFuture(current);
+        }
+        return signal.completeOnTimeout(null, wait.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApplyAsync(ignored -> read(ownerId, since), readers)
+                .whenComplete((result, error) -> subscription.close());
+    }
+
+    /**
+     * Event stream of jobs after {@code since}: the backlog first, then new jobs as they are committed, as
+     * {@code jobs} events whose id is the cursor (so a reconnecting EventSource resumes via Last-Event-ID).
+     */
+    public SseEmitter stream(Long ownerId, long since) {
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        new JobStream(ownerId, since, emitter).start();
+        return emitter;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        readers.shutdownNow();
+    }
+
+    private PermissionJobFeedResponse read(Long ownerId, long since) {
+        List<PermissionJob> jobs = permissionJobRepository.findByOwnerIdAndStatusAndFeedSeqGreaterThanOrderByFeedSeqAsc(
+                ownerId, PermissionJobStatus.PENDING, since, Limit.of(properties.getFeedBatchSize()));
+        long cursor = jobs.isEmpty() ? since : jobs.get(jobs.size() - 1).getFeedSeq();
+        List<PermissionJobResponse> items = jobs.stream().map(permissionJobService::toResponse).toList();
+        return new PermissionJobFeedResponse(cursor, items);
+    }
+
+    private final class JobStream {
+        private final Long ownerId;
+        private final SseEmitter emitter;
+        // Sends are I/O; a lock rather than synchronized so a virtual thread does not pin its carrier.
+        private final ReentrantLock sendLock = new ReentrantLock();
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private long cursor;
+        private PermissionJobNotifier.Subscription subscription;
+        private ScheduledFuture<?> heartbeat;
+
+        private JobStream(Long ownerId, long since, SseEmitter emitter) {
+            this.ownerId = ownerId;
+            this.cursor = since;
+            this.emitter = emitter;
+        }
+
+        private void start() {
+            emitter.onCompletion(this::close);
+            emitter.onTimeout(this::close);
+            emitter.onError(error -> close());
+            subscription = permissionJobNotifier.subscribe(ownerId, this::scheduleDrain);
+            heartbeat = taskScheduler.scheduleAtFixedRate(this::heartbeat, properties.getStreamHeartbeat());
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (closed.get() || !drainScheduled.compareAndSet(false, true)) return;
+            readers.execute(this::drain);
+        }
+
+        private void drain() {
+            sendLock.lock();
+            try {
+                // Cleared before reading: a signal from here on schedules another pass.
+                drainScheduled.set(false);
+                while (!closed.get()) {
+                    PermissionJobFeedResponse feed = read(ownerId, cursor);
+                    if (feed.jobs().isEmpty()) return;
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(feed.cursor()))
+                            .name("jobs")
+                            .data(feed.jobs(), MediaType.APPLICATION_JSON));
+                    cursor = feed.cursor();
+                    if (feed.jobs().size() < properties.getFeedBatchSize()) return;
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Permission job stream for owner {} ended: {}", ownerId, e.getMessage());
+                close();
+            } catch (RuntimeException e) {
+                log.warn("Permission job stream for owner {} failed: {}", ownerId, e.getMessage());
+                close();
+                emitter.completeWithError(e);
+            } finally {
+                sendLock.unlock();
+            }
+        }
+
+        private void heartbeat() {
+            if (closed.get()) return;
+            sendLock.lock();
+            try {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                sendLock.unlock();
+            }
+        }
+
+        private void close() {
+            if (!closed.compareAndSet(false, true)) return;
+            if (subscription != null) subscription.close();
+            if (heartbeat != null) heartbeat.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.devaxiom.safedocs.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.devaxiom.safedocs.config.PermissionJobProperties;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.regex.Pattern;
+
+/**
+ * Wakes the job feed (long-poll and SSE) of an owner when jobs are enqueued for them. Listeners on this node
+ * are signalled after the enqueuing transaction commits; the same transaction issues a Postgres
+ * {@code NOTIFY} so listeners on other nodes are signalled too. A signal only means "look again": receivers
+ * re-read from their cursor, so duplicate or spurious signals are harmless, and all listeners are signalled
+ * after the LISTEN connection reconnects.
+ */
+@Component
+@Slf4j
+public class PermissionJobNotifier implements SmartLifecycle {
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final ConcurrentHashMap<Long, Set<Runnable>> listeners = new ConcurrentHashMap<>();
+    private final PermissionJobProperties properties;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean notifySupported;
+    private volatile boolean running;
+    private Thread listener;
+
+    public PermissionJobNotifier(PermissionJobProperties properties, DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        if (!CHANNEL_NAME.matcher(properties.getNotifyChannel()).matches()) {
+            throw new IllegalArgumentException("Invalid notify channel: " + properties.getNotifyChannel());
+        }
+        this.properties = properties;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Registers {@code onJobs} for the owner until the returned handle is closed.
+     */
+    public Subscription subscribe(Long ownerId, Runnable onJobs) {
+        listeners.computeIfAbsent(ownerId, id -> new CopyOnWriteArraySet<>()).add(onJobs);
+        return () -> listeners.computeIfPresent(ownerId, (id, set) -> {
+            set.remove(onJobs);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    public void jobsEnqueued(Collection<Long> ownerIds) {
+        if (ownerIds.isEmpty()) return;
+        if (notifySupported) {
+            for (Long ownerId : ownerIds) {
+                jdbcTemplate.query("select pg_notify(?, ?)", rs -> null, properties.getNotifyChannel(), ownerId.toString());
+            }
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    ownerIds.forEach(PermissionJobNotifier.this::signal);
+                }
+            });
+        } else {
+            ownerIds.forEach(this::signal);
+        }
+    }
+
+    @Override
+    public void start() {
+        try (Connection conn = dataSource.getConnection()) {
+            notifySupported = conn.isWrapperFor(PGConnection.class);
+        } catch (SQLException e) {
+            log.warn("Could not inspect datasource for LISTEN/NOTIFY support: {}", e.getMessage());
+        }
+        if (!notifySupported) {
+            log.info("Datasource is not PostgreSQL; permission job notifications stay local to this node");
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "permission-job-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) listener.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void signal(Long ownerId) {
+        Set<Runnable> set = listeners.get(ownerId);
+        if (set == null) return;
+        for (Runnable r : set) {
+            try {
+                r.run();
+            } catch (RuntimeException e) {
+                log.warn("Permission job listener for owner {} failed: {}", ownerId, e.getMessage());
+            }
+        }
+    }
+
+    private void signalAll() {
+        listeners.keySet().forEach(this::signal);
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection conn = dataSource.getConnection()) {
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + properties.getNotifyChannel());
+                }
+                // Anything enqueued elsewhere while we were not listening is unknown.
+                signalAll();
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(1000);
+                    if (notifications == null) continue;
+                    for (PGNotification n : notifications) {
+                        dispatch(n.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Permission job LISTEN connection lost, retrying in {}: {}", properties.getReconnectDelay(), e.getMessage());
+                try {
+                    Thread.sleep(properties.getReconnectDelay().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        try {
+            signal(Long.valueOf(payload));
+        } catch (NumberFormatException e) {
+            signalAll();
+        }
+    }
+
+    @FunctionalInterface
+    public interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
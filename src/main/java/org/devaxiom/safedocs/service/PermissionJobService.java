@@ -2,9 +2,14 @@ package org.devaxiom.safedocs.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.devaxiom.safedocs.config.PermissionJobProperties;
+import org.devaxiom.safedocs.dto.permission.PermissionJobBatchUpdateItem;
+import org.devaxiom.safedocs.dto.permission.PermissionJobBatchUpdateResponse;
+import org.devaxiom.safedocs.dto.permission.PermissionJobClaimResponse;
 import org.devaxiom.safedocs.dto.permission.PermissionJobItem;
 import org.devaxiom.safedocs.dto.permission.PermissionJobResponse;
 import org.devaxiom.safedocs.dto.permission.PermissionJobUpdateRequest;
+import org.devaxiom.safedocs.dto.permission.PermissionJobUpdateResult;
 import org.devaxiom.safedocs.enums.PermissionJobAction;
 import org.devaxiom.safedocs.enums.PermissionJobStatus;
 import org.devaxiom.safedocs.exception.BadRequestException;
@@ -16,11 +21,27 @@ import org.devaxiom.safedocs.model.PermissionJob;
 import org.devaxiom.safedocs.model.User;
 import org.devaxiom.safedocs.repository.DocumentRepository;
 import org.devaxiom.safedocs.repository.PermissionJobRepository;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 
 @Service
@@ -28,46 +49,230 @@ import java.util.UUID;
 @Slf4j
 public class PermissionJobService {
 
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final String INSERT_PREFIX = "INSERT INTO permission_job (job_id, document_public_id, drive_file_id, "
+            + "owner_user_id, target_user_email, action, family_id, status, attempts, feed_seq, "
+            + "created_by, created_date, last_modified_by, last_modified_date) VALUES ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SUFFIX = " ON CONFLICT DO NOTHING";
+    private static final String KEY_ROW = "(?, ?, ?, ?)";
+    private static final String CANCEL_PREFIX = "UPDATE permission_job SET status = 'CANCELLED', last_error = ?, "
+            + "last_modified_by = ?, last_modified_date = ? WHERE status = 'PENDING' "
+            + "AND (document_public_id, owner_user_id, target_user_email, action) IN (VALUES ";
+    private static final String REPLACE_PREFIX = "DELETE FROM permission_job WHERE status IN ('DONE', 'FAILED', 'CANCELLED') "
+            + "AND (document_public_id, owner_user_id, target_user_email, action) IN (VALUES ";
+    // PENDING jobs (alias p) with a later outstanding job of the opposite action for the same target.
+    private static final String SUPERSEDED_PENDING = """
+            p.status = 'PENDING'
+              AND EXISTS (SELECT 1
+                          FROM permission_job q
+                          WHERE q.document_public_id = p.document_public_id
+                            AND q.owner_user_id = p.owner_user_id
+                            AND q.target_user_email = p.target_user_email
+                            AND q.action <> p.action
+                            AND q.status IN ('PENDING', 'LEASED')
+                            AND q.id > p.id)
+            """;
+    private static final String SUPERSEDED = "Superseded by a later opposite action";
+    // Concurrent claimers skip each other's locked rows instead of waiting, so each job goes to exactly one lease.
+    private static final String CLAIM = """
+            UPDATE permission_job
+            SET status = 'LEASED', lease_owner = ?, lease_expires_at = ?, last_modified_date = ?
+            WHERE id IN (SELECT id
+                         FROM permission_job
+                         WHERE owner_user_id = ? AND status = 'PENDING'
+                         ORDER BY id
+                         LIMIT ?
+                         FOR UPDATE SKIP LOCKED)
+            RETURNING job_id
+            """;
+    // Takes the next {@code count} feed positions of an owner and returns the last one. The counter row stays locked
+    // until commit, so the owner's next reservation waits for this one: positions become visible in order.
+    private static final String RESERVE_FEED_SEQ = """
+            INSERT INTO permission_job_feed (owner_user_id, last_seq) VALUES (?, ?)
+            ON CONFLICT (owner_user_id) DO UPDATE SET last_seq = permission_job_feed.last_seq + EXCLUDED.last_seq
+            RETURNING last_seq
+            """;
+    private static final String EXPIRED_LEASES = """
+            SELECT id, owner_user_id
+            FROM permission_job
+            WHERE status = 'LEASED' AND lease_expires_at < ?
+            ORDER BY id
+            FOR UPDATE SKIP LOCKED
+            """;
+    private static final String RELEASE_LEASE = "UPDATE permission_job SET status = 'PENDING', lease_owner = NULL, "
+            + "lease_expires_at = NULL, feed_seq = ?, last_modified_date = ? WHERE id = ?";
+    // Locked so a concurrent claim or lease reaper cannot change a job between the checks and the update.
+    private static final String LOCK_FOR_UPDATE = """
+            SELECT id, job_id, owner_user_id, status, lease_owner, lease_expires_at
+            FROM permission_job
+            WHERE job_id = ANY(?)
+            ORDER BY id
+            FOR UPDATE
+            """;
+    private static final String APPLY_UPDATE = "UPDATE permission_job SET status = ?, attempts = COALESCE(?, attempts), "
+            + "last_error = COALESCE(?, last_error), lease_owner = NULL, lease_expires_at = NULL, "
+            + "last_modified_by = ?, last_modified_date = ? WHERE id = ?";
+
     private final PermissionJobRepository permissionJobRepository;
     private final DocumentRepository documentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditorAware<User> auditorAware;
+    private final PermissionJobProperties properties;
+    private final PermissionJobNotifier permissionJobNotifier;
+
+    /**
+     * Target of one permission change, resolved by the caller. The owner's email is carried so jobs targeting
+     * the owner themselves can be dropped without loading anything.
+     */
+    public record JobSpec(
+            UUID documentPublicId,
+            String driveFileId,
+            Long ownerId,
+            String ownerEmail,
+            String targetEmail,
+            PermissionJobAction action,
+            Long familyId
+    ) {
+        public static JobSpec of(Document doc, User owner, String targetEmail, PermissionJobAction action, Family family) {
+            return new JobSpec(doc.getPublicId(), doc.getDriveFileId(), owner.getId(), owner.getEmail(),
+                    targetEmail, action, family != null ? family.getId() : null);
+        }
+    }
+
+    // One Drive permission; at most one action per target survives coalescing.
+    private record Target(UUID documentPublicId, Long ownerId, String targetEmail) {
+    }
 
     public boolean enqueueJob(Document doc, User owner, String targetEmail, PermissionJobAction action, Family family) {
         if (doc == null || owner == null) return false;
-        String normalizedEmail = normalizeEmail(targetEmail);
-        if (normalizedEmail == null || normalizedEmail.isBlank()) return false;
-        if (owner.getEmail() != null && normalizedEmail.equalsIgnoreCase(owner.getEmail())) return false;
-
-        Optional<PermissionJob> existing = permissionJobRepository
-                .findByDocumentPublicIdAndOwnerIdAndTargetUserEmailAndAction(
-                        doc.getPublicId(),
-                        owner.getId(),
-                        normalizedEmail,
-                        action
-                );
-        if (existing.isPresent()) {
-            return false;
-        }
-
-        PermissionJob job = PermissionJob.builder()
-                .documentPublicId(doc.getPublicId())
-                .driveFileId(doc.getDriveFileId())
-                .owner(owner)
-                .targetUserEmail(normalizedEmail)
-                .action(action)
-                .family(family)
-                .status(PermissionJobStatus.PENDING)
-                .attempts(0)
-                .build();
-        permissionJobRepository.save(job);
-        return true;
+        return enqueueAll(List.of(JobSpec.of(doc, owner, targetEmail, action, family))) > 0;
+    }
+
+    /**
+     * Queues PENDING jobs in chunks of {@value #INSERT_BATCH_SIZE} and coalesces them with the queue, so only
+     * the last intended action per (document, owner, target) is left to run:
+     * <ul>
+     *     <li>within the call, a later spec for the same target replaces an earlier one;</li>
+     *     <li>a PENDING job with the opposite action is CANCELLED, since it was never applied;</li>
+     *     <li>a finished (DONE, FAILED, CANCELLED) job with the same action is replaced, as the unique key
+     *     admits one row per action;</li>
+     *     <li>a PENDING or LEASED job with the same action already covers the new one (ON CONFLICT DO NOTHING).</li>
+     * </ul>
+     * Jobs targeting the owner are dropped.
+     *
+     * @return the number of jobs created
+     */
+    @Transactional
+    public int enqueueAll(Collection<JobSpec> specs) {
+        Map<Target, JobSpec> latest = new LinkedHashMap<>();
+        for (JobSpec spec : specs) {
+            String email = normalizeEmail(spec.targetEmail());
+            if (email == null || email.isBlank()) continue;
+            if (spec.ownerEmail() != null && email.equalsIgnoreCase(spec.ownerEmail())) continue;
+            Target target = new Target(spec.documentPublicId(), spec.ownerId(), email);
+            latest.remove(target);
+            latest.put(target, spec);
+        }
+        if (latest.isEmpty()) return 0;
+
+        Long auditorId = auditorAware.getCurrentAuditor().map(User::getId).orElse(null);
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Integer> perOwner = new HashMap<>();
+        latest.keySet().forEach(target -> perOwner.merge(target.ownerId(), 1, Integer::sum));
+        Map<Long, Long> nextSeq = reserveFeedSeq(perOwner);
+        List<Map.Entry<Target, JobSpec>> entries = new ArrayList<>(latest.entrySet());
+        int created = 0;
+        int cancelled = 0;
+        for (int from = 0; from < entries.size(); from += INSERT_BATCH_SIZE) {
+            List<Map.Entry<Target, JobSpec>> chunk = entries.subList(from, Math.min(from + INSERT_BATCH_SIZE, entries.size()));
+            List<Object> opposite = new ArrayList<>(chunk.size() * 4);
+            List<Object> same = new ArrayList<>(chunk.size() * 4);
+            List<Object> rows = new ArrayList<>(chunk.size() * 14);
+            for (Map.Entry<Target, JobSpec> e : chunk) {
+                Target target = e.getKey();
+                JobSpec spec = e.getValue();
+                Collections.addAll(opposite, target.documentPublicId(), target.ownerId(), target.targetEmail(),
+                        opposite(spec.action()).name());
+                Collections.addAll(same, target.documentPublicId(), target.ownerId(), target.targetEmail(),
+                        spec.action().name());
+                String driveFileId = spec.driveFileId() != null ? spec.driveFileId().trim() : null;
+                Collections.addAll(rows, UUID.randomUUID(), spec.documentPublicId(), driveFileId, spec.ownerId(),
+                        target.targetEmail(), spec.action().name(), spec.familyId(), PermissionJobStatus.PENDING.name(),
+                        0, takeSeq(nextSeq, target.ownerId()), auditorId, now, auditorId, now);
+            }
+            List<Object> cancelArgs = new ArrayList<>(opposite.size() + 3);
+            Collections.addAll(cancelArgs, SUPERSEDED, auditorId, now);
+            cancelArgs.addAll(opposite);
+            cancelled += jdbcTemplate.update(withRows(CANCEL_PREFIX, KEY_ROW, chunk.size(), ")"), cancelArgs.toArray());
+            jdbcTemplate.update(withRows(REPLACE_PREFIX, KEY_ROW, chunk.size(), ")"), same.toArray());
+            created += jdbcTemplate.update(withRows(INSERT_PREFIX, INSERT_ROW, chunk.size(), INSERT_SUFFIX), rows.toArray());
+        }
+        if (cancelled > 0) log.debug("Cancelled {} pending permission jobs superseded by opposite actions", cancelled);
+        if (created > 0) {
+            permissionJobNotifier.jobsEnqueued(latest.keySet().stream().map(Target::ownerId).distinct().toList());
+        }
+        return created;
+    }
+
+    /**
+     * One-off cleanup of a queue built before enqueueing coalesced: where a target has both a GRANT and a
+     * REVOKE outstanding, the earlier PENDING one is CANCELLED. With {@code dryRun} the jobs are only counted.
+     */
+    @Transactional
+    public CompactionReport compactPending(boolean dryRun) {
+        if (dryRun) {
+            Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM permission_job p WHERE " + SUPERSEDED_PENDING, Integer.class);
+            return new CompactionReport(count != null ? count : 0, false);
+        }
+        Long auditorId = auditorAware.getCurrentAuditor().map(User::getId).orElse(null);
+        int cancelled = jdbcTemplate.update("UPDATE permission_job p SET status = 'CANCELLED', last_error = ?, "
+                + "last_modified_by = ?, last_modified_date = ? WHERE " + SUPERSEDED_PENDING, SUPERSEDED, auditorId, LocalDateTime.now());
+        log.info("Permission job compaction cancelled {} superseded jobs", cancelled);
+        return new CompactionReport(cancelled, true);
+    }
+
+    public record CompactionReport(int superseded, boolean applied) {
+    }
+
+    // Owners in id order, so two transactions reserving for the same owners cannot deadlock.
+    private Map<Long, Long> reserveFeedSeq(Map<Long, Integer> countsByOwner) {
+        Map<Long, Long> next = new HashMap<>();
+        new TreeMap<>(countsByOwner).forEach((ownerId, count) -> {
+            Long last = jdbcTemplate.queryForObject(RESERVE_FEED_SEQ, Long.class, ownerId, count);
+            next.put(ownerId, last - count + 1);
+        });
+        return next;
+    }
+
+    private static long takeSeq(Map<Long, Long> nextSeq, Long ownerId) {
+        return nextSeq.merge(ownerId, 1L, Long::sum) - 1;
+    }
+
+    private static PermissionJobAction opposite(PermissionJobAction action) {
+        return action == PermissionJobAction.GRANT ? PermissionJobAction.REVOKE : PermissionJobAction.GRANT;
+    }
+
+    private static String withRows(String prefix, String row, int rows, String suffix) {
+        StringBuilder sql = new StringBuilder(prefix.length() + rows * (row.length() + 1) + suffix.length());
+        sql.append(prefix);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) sql.append(',');
+            sql.append(row);
+        }
+        sql.append(suffix);
+        return sql.toString();
     }
 
     @Transactional
     public int enqueueJobs(List<PermissionJobItem> items, User owner) {
-        int queued = 0;
+        Map<UUID, Document> docs = new HashMap<>();
+        documentRepository.findByPublicIdIn(items.stream().map(PermissionJobItem::documentPublicId).distinct().toList())
+                .forEach(doc -> docs.put(doc.getPublicId(), doc));
+        List<JobSpec> specs = new ArrayList<>(items.size());
         for (PermissionJobItem item : items) {
-            Document doc = documentRepository.findByPublicId(item.documentPublicId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Document not found"));
+            Document doc = docs.get(item.documentPublicId());
+            if (doc == null) throw new ResourceNotFoundException("Document not found");
             if (!doc.getOwner().getId().equals(owner.getId())) {
                 throw new UnauthorizedException("Not allowed to create jobs for this document");
             }
@@ -85,10 +290,9 @@ public class PermissionJobService {
                     throw new BadRequestException("familyId does not match document");
                 }
             }
-            boolean created = enqueueJob(doc, owner, item.targetUserEmail(), item.action(), family);
-            if (created) queued++;
+            specs.add(JobSpec.of(doc, owner, item.targetUserEmail(), item.action(), family));
         }
-        return queued;
+        return enqueueAll(specs);
     }
 
     public List<PermissionJobResponse> listJobs(User owner, PermissionJobStatus status) {
@@ -99,6 +303,54 @@ public class PermissionJobService {
                 .toList();
     }
 
+    /**
+     * Leases up to {@code limit} of the owner's PENDING jobs to {@code leaseOwner} (a generated id when null)
+     * until the lease expires. Leased jobs are not listed as PENDING and cannot be claimed again, so several
+     * workers can drain one queue without applying the same change twice; an expired lease is returned to
+     * PENDING by {@link #releaseExpiredLeases}.
+     */
+    @Transactional
+    public PermissionJobClaimResponse claimJobs(User owner, int limit, String leaseOwner) {
+        if (limit < 1 || limit > properties.getMaxClaim()) {
+            throw new BadRequestException("limit must be between 1 and " + properties.getMaxClaim());
+        }
+        String lessee = leaseOwner == null || leaseOwner.isBlank() ? UUID.randomUUID().toString() : leaseOwner.trim();
+        if (lessee.length() > 100) throw new BadRequestException("worker must be at most 100 characters");
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(properties.getLeaseDuration());
+        List<UUID> claimed = jdbcTemplate.queryForList(CLAIM, UUID.class, lessee, expiresAt, now, owner.getId(), limit);
+        List<PermissionJobResponse> jobs = claimed.isEmpty() ? List.of() : permissionJobRepository.findByJobIdIn(claimed)
+                .stream()
+                .sorted(Comparator.comparing(PermissionJob::getId))
+                .map(this::toResponse)
+                .toList();
+        return new PermissionJobClaimResponse(lessee, expiresAt, jobs);
+    }
+
+    /**
+     * Returns jobs whose lease expired to PENDING. Each gets a new feed position and its owner's feed is
+     * signalled, so the job is pushed again rather than sitting below cursors that already passed it.
+     */
+    @Scheduled(fixedDelayString = "${safedocs.permission-jobs.reap-interval:PT30S}")
+    @Transactional
+    public void releaseExpiredLeases() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Long> ownerByJob = new LinkedHashMap<>();
+        jdbcTemplate.query(EXPIRED_LEASES, rs -> {
+            ownerByJob.put(rs.getLong("id"), rs.getLong("owner_user_id"));
+        }, now);
+        if (ownerByJob.isEmpty()) return;
+        Map<Long, Integer> perOwner = new HashMap<>();
+        ownerByJob.values().forEach(ownerId -> perOwner.merge(ownerId, 1, Integer::sum));
+        Map<Long, Long> nextSeq = reserveFeedSeq(perOwner);
+        List<Object[]> batch = new ArrayList<>(ownerByJob.size());
+        ownerByJob.forEach((id, ownerId) -> batch.add(new Object[]{takeSeq(nextSeq, ownerId), now, id}));
+        jdbcTemplate.batchUpdate(RELEASE_LEASE, batch);
+        permissionJobNotifier.jobsEnqueued(List.copyOf(perOwner.keySet()));
+        log.info("Returned {} permission jobs with expired leases to PENDING", ownerByJob.size());
+    }
+
     @Transactional
     public PermissionJobResponse updateJob(UUID jobId, PermissionJobUpdateRequest request, User owner) {
         PermissionJob job = permissionJobRepository.findByJobId(jobId)
@@ -106,13 +358,12 @@ public class PermissionJobService {
         if (!job.getOwner().getId().equals(owner.getId())) {
             throw new UnauthorizedException("Not allowed to update this job");
         }
-        if (job.getStatus() != PermissionJobStatus.PENDING) {
-            throw new BadRequestException("Only PENDING jobs can be updated");
-        }
-        if (request.status() == PermissionJobStatus.PENDING) {
-            throw new BadRequestException("Job status must be DONE or FAILED");
-        }
+        String rejection = rejectUpdate(job.getStatus(), job.getLeaseOwner(), job.getLeaseExpiresAt(),
+                request.status(), request.leaseOwner(), LocalDateTime.now());
+        if (rejection != null) throw new BadRequestException(rejection);
         job.setStatus(request.status());
+        job.setLeaseOwner(null);
+        job.setLeaseExpiresAt(null);
         if (request.attempts() != null) {
             job.setAttempts(Math.max(0, request.attempts()));
         }
@@ -123,7 +374,98 @@ public class PermissionJobService {
         return toResponse(job);
     }
 
-    private PermissionJobResponse toResponse(PermissionJob job) {
+    /**
+     * Applies many status updates in one transaction: the jobs are looked up and locked with a single
+     * {@code job_id = ANY(?)} query, each item is checked like {@link #updateJob}, and the accepted ones are
+     * written as one JDBC batch. A rejected item does not fail the others; every item gets a result, in
+     * request order.
+     */
+    @Transactional
+    public PermissionJobBatchUpdateResponse updateJobs(List<PermissionJobBatchUpdateItem> items, User owner) {
+        if (items.size() > properties.getMaxBatchUpdate()) {
+            throw new BadRequestException("At most " + properties.getMaxBatchUpdate() + " jobs can be updated at once");
+        }
+        Map<UUID, LockedJob> jobs = lockJobs(items.stream().map(PermissionJobBatchUpdateItem::jobId).distinct().toList());
+
+        Long auditorId = auditorAware.getCurrentAuditor().map(User::getId).orElse(null);
+        LocalDateTime now = LocalDateTime.now();
+        Set<UUID> seen = new HashSet<>();
+        List<Object[]> batch = new ArrayList<>();
+        List<PermissionJobUpdateResult> results = new ArrayList<>(items.size());
+        for (PermissionJobBatchUpdateItem item : items) {
+            LockedJob job = jobs.get(item.jobId());
+            if (job == null || !job.ownerId().equals(owner.getId())) {
+                // Someone else's job is reported like a missing one, so ids cannot be probed.
+                results.add(new PermissionJobUpdateResult(item.jobId(), false, null, "Job not found"));
+                continue;
+            }
+            if (!seen.add(item.jobId())) {
+                results.add(new PermissionJobUpdateResult(item.jobId(), false, null, "Duplicate jobId in request"));
+                continue;
+            }
+            String rejection = rejectUpdate(job.status(), job.leaseOwner(), job.leaseExpiresAt(),
+                    item.status(), item.leaseOwner(), now);
+            if (rejection != null) {
+                results.add(new PermissionJobUpdateResult(item.jobId(), false, job.status(), rejection));
+                continue;
+            }
+            Integer attempts = item.attempts() != null ? Math.max(0, item.attempts()) : null;
+            String lastError = item.lastError() != null ? item.lastError().trim() : null;
+            batch.add(new Object[]{item.status().name(), attempts, lastError, auditorId, now, job.id()});
+            results.add(new PermissionJobUpdateResult(item.jobId(), true, item.status(), null));
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPLY_UPDATE, batch, batch.size(), (ps, args) -> {
+                ps.setString(1, (String) args[0]);
+                ps.setObject(2, args[1], Types.INTEGER);
+                ps.setObject(3, args[2], Types.VARCHAR);
+                ps.setObject(4, args[3], Types.BIGINT);
+                ps.setObject(5, args[4]);
+                ps.setLong(6, (Long) args[5]);
+            });
+        }
+        return new PermissionJobBatchUpdateResponse(batch.size(), results);
+    }
+
+    private Map<UUID, LockedJob> lockJobs(List<UUID> jobIds) {
+        Map<UUID, LockedJob> jobs = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(LOCK_FOR_UPDATE);
+            ps.setArray(1, con.createArrayOf("uuid", jobIds.toArray()));
+            return ps;
+        }, rs -> {
+            UUID jobId = rs.getObject("job_id", UUID.class);
+            jobs.put(jobId, new LockedJob(
+                    rs.getLong("id"),
+                    rs.getLong("owner_user_id"),
+                    PermissionJobStatus.valueOf(rs.getString("status")),
+                    rs.getString("lease_owner"),
+                    rs.getObject("lease_expires_at", LocalDateTime.class)));
+        });
+        return jobs;
+    }
+
+    // Null when the transition is allowed, otherwise the reason it is not.
+    private static String rejectUpdate(PermissionJobStatus current, String currentLeaseOwner, LocalDateTime leaseExpiresAt,
+                                       PermissionJobStatus requested, String leaseOwner, LocalDateTime now) {
+        if (current != PermissionJobStatus.PENDING && current != PermissionJobStatus.LEASED) {
+            return "Only PENDING or LEASED jobs can be updated";
+        }
+        if (current == PermissionJobStatus.LEASED
+                && leaseExpiresAt != null && leaseExpiresAt.isAfter(now)
+                && !Objects.equals(currentLeaseOwner, leaseOwner)) {
+            return "Job is leased by another worker";
+        }
+        if (requested != PermissionJobStatus.DONE && requested != PermissionJobStatus.FAILED) {
+            return "Job status must be DONE or FAILED";
+        }
+        return null;
+    }
+
+    private record LockedJob(long id, Long ownerId, PermissionJobStatus status, String leaseOwner, LocalDateTime leaseExpiresAt) {
+    }
+
+    PermissionJobResponse toResponse(PermissionJob job) {
         return new PermissionJobResponse(
                 job.getJobId(),
                 job.getDocumentPublicId(),
@@ -10,6 +10,7 @@ import org.devaxiom.safedocs.enums.DocumentStatus;
 import org.devaxiom.safedocs.enums.DocumentVisibility;
 import org.devaxiom.safedocs.enums.FamilyRole;
 import org.devaxiom.safedocs.enums.SubjectScope;
+import org.devaxiom.safedocs.event.DocumentListsChangedEvent;
 import org.devaxiom.safedocs.exception.BadRequestException;
 import org.devaxiom.safedocs.exception.ForbiddenException;
 import org.devaxiom.safedocs.exception.ResourceAlreadyExistsException;
@@ -18,10 +19,12 @@ import org.devaxiom.safedocs.model.Family;
 import org.devaxiom.safedocs.model.Document;
 import org.devaxiom.safedocs.model.Subject;
 import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.repository.ContentVersion;
 import org.devaxiom.safedocs.repository.DocumentRepository;
-import org.devaxiom.safedocs.repository.FamilyMemberRepository;
 import org.devaxiom.safedocs.repository.FamilyRepository;
 import org.devaxiom.safedocs.repository.SubjectRepository;
+import org.devaxiom.safedocs.util.ETags;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -39,8 +42,30 @@ public class SubjectService {
 
     private final SubjectRepository subjectRepository;
     private final FamilyRepository familyRepository;
-    private final FamilyMemberRepository familyMemberRepository;
+    private final FamilyMembershipIndex familyMembershipIndex;
     private final DocumentRepository documentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Weak ETag for {@link #list}: page parameters plus count and newest {@code updatedAt} of the subjects in scope.
+     * Document moves and deletes touch their subjects, so document counts are covered too.
+     */
+    @Transactional(readOnly = true)
+    public String listEtag(User user, SubjectScope scope, UUID familyPublicId, int page, int size) {
+        if (scope == null) throw new BadRequestException("scope is required");
+        ContentVersion version;
+        if (scope == SubjectScope.PERSONAL) {
+            if (familyPublicId != null) {
+                throw new BadRequestException("familyId must be null when scope is PERSONAL");
+            }
+            version = subjectRepository.findVersionByOwnerIdAndScope(user.getId(), SubjectScope.PERSONAL);
+        } else {
+            if (familyPublicId == null) throw new BadRequestException("familyId is required when scope is FAMILY");
+            Family family = requireFamilyMembership(familyPublicId, user);
+            version = subjectRepository.findVersionByFamilyIdAndScope(family.getId(), SubjectScope.FAMILY);
+        }
+        return ETags.weak(user.getId(), scope, familyPublicId, page, size, version);
+    }
 
     @Transactional(readOnly = true)
     public SubjectPageResponse list(User user, SubjectScope scope, UUID familyPublicId, int page, int size) {
@@ -159,10 +184,14 @@ public class SubjectService {
         List<Document> docs = documentRepository.findBySubject_Id(subjectId);
         if (!docs.isEmpty()) {
             touchDocumentActivity(subject);
+            DocumentListsChangedEvent.DocumentListsChangedEventBuilder audience = DocumentListsChangedEvent.builder();
             for (Document doc : docs) {
                 doc.setSubject(null);
+                audience.userId(doc.getOwner().getId());
+                if (doc.getFamily() != null) audience.familyId(doc.getFamily().getId());
             }
             documentRepository.saveAll(docs);
+            eventPublisher.publishEvent(audience.build());
         }
 
         subjectRepository.delete(subject);
@@ -237,7 +266,7 @@ public class SubjectService {
     private Family requireFamilyMembership(UUID familyPublicId, User user) {
         Family family = familyRepository.findByPublicId(familyPublicId)
                 .orElseThrow(() -> new BadRequestException("Family not found"));
-        boolean member = familyMemberRepository.findByFamilyIdAndUserIdAndActiveTrue(family.getId(), user.getId()).isPresent();
+        boolean member = familyMembershipIndex.isMember(family.getId(), user.getId());
         if (!member) {
             throw new ForbiddenException("Not a member of this family");
         }
@@ -248,12 +277,11 @@ public class SubjectService {
         Family family = familyRepository.findByPublicId(familyPublicId)
                 .orElseThrow(() -> new BadRequestException("Family not found"));
 
-        boolean head = familyMemberRepository
-                .existsByFamilyIdAndUserIdAndActiveTrueAndRoleIn(
-                        family.getId(),
-                        user.getId(),
-                        List.of(FamilyRole.HEAD)
-                );
+        boolean head = familyMembershipIndex.hasRole(
+                family.getId(),
+                user.getId(),
+                List.of(FamilyRole.HEAD)
+        );
         if (!head) {
             throw new ForbiddenException("Only family head can manage subjects");
         }
@@ -291,7 +319,7 @@ public class SubjectService {
         if (subject.getFamily() == null || subject.getFamily().getId() == null) {
             throw new BadRequestException("Subject family is missing");
         }
-        boolean canEdit = familyMemberRepository.existsByFamilyIdAndUserIdAndActiveTrueAndRoleIn(
+        boolean canEdit = familyMembershipIndex.hasRole(
                 subject.getFamily().getId(),
                 user.getId(),
                 List.of(FamilyRole.HEAD, FamilyRole.CONTRIBUTOR)
@@ -0,0 +1,60 @@
+package org.devaxiom.safedocs.web;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buckets in the rate_limit_bucket table so every node draws from the same budget. Admission is a single
+ * upsert that only writes when a token is available; timestamps come from the database clock, so node clock
+ * skew does not matter. Costs one pooled-connection round trip per limited request.
+ */
+@Component
+@ConditionalOnProperty(name = "safedocs.rate-limit.store", havingValue = "postgres")
+@RequiredArgsConstructor
+@Slf4j
+public class PostgresRateLimiter implements RateLimiter {
+
+    private static final String NOW_MICROS = "(extract(epoch FROM statement_timestamp()) * 1000000)::bigint";
+
+    private static final String ACQUIRE = """
+            INSERT INTO rate_limit_bucket (bucket_key, tat)
+            VALUES (:key, %1$s + :interval)
+            ON CONFLICT (bucket_key) DO UPDATE
+                SET tat = GREATEST(rate_limit_bucket.tat, %1$s) + :interval
+                WHERE GREATEST(rate_limit_bucket.tat, %1$s) + :interval - %1$s <= :burst
+            RETURNING 1
+            """.formatted(NOW_MICROS);
+
+    private static final String WAIT = """
+            SELECT GREATEST(tat, %1$s) + :interval - %1$s - :burst FROM rate_limit_bucket WHERE bucket_key = :key
+            """.formatted(NOW_MICROS);
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public long tryAcquire(String key, long intervalNanos, long capacity) {
+        long intervalMicros = Math.max(1, intervalNanos / 1_000);
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("key", key)
+                .addValue("interval", intervalMicros)
+                .addValue("burst", intervalMicros * capacity);
+        if (!jdbc.queryForList(ACQUIRE, params, Integer.class).isEmpty()) return 0;
+        List<Long> wait = jdbc.queryForList(WAIT, params, Long.class);
+        return wait.isEmpty() ? intervalNanos : Math.max(1, wait.get(0)) * 1_000;
+    }
+
+    // A bucket whose arrival time has passed is full again, which is the same as having no row.
+    @Scheduled(fixedDelayString = "${safedocs.rate-limit.cleanup-interval:PT5M}")
+    public void purgeFullBuckets() {
+        int purged = jdbc.update("DELETE FROM rate_limit_bucket WHERE tat < " + NOW_MICROS, Map.of());
+        if (purged > 0) log.debug("Purged {} full rate limit buckets", purged);
+    }
+}
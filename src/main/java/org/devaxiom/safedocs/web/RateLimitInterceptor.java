@@ -0,0 +1,113 @@
+package org.devaxiom.safedocs.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.devaxiom.safedocs.config.RateLimitProperties;
+import org.devaxiom.safedocs.exception.RateLimitExceededException;
+import org.devaxiom.safedocs.security.UserDetailsImpl;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Applies the configured per-route token buckets, one bucket per (route, user). Routes are matched on the
+ * HTTP method and the handler's mapping pattern (e.g. {@code /api/documents/{id}}), so the lookup is a map
+ * probe rather than pattern matching. Requests without an authenticated user are not limited here.
+ */
+@Slf4j
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+    private final Map<String, List<LimitedRoute>> routes = new HashMap<>();
+
+    public RateLimitInterceptor(RateLimitProperties properties, RateLimiter rateLimiter, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        properties.getRoutes().forEach((name, route) -> {
+            if (route.getCapacity() < 1 || route.getRefillPerSecond() <= 0) {
+                throw new IllegalArgumentException("Rate limit route " + name + " needs capacity >= 1 and refill-per-second > 0");
+            }
+            routes.computeIfAbsent(routeKey(route.getMethod(), route.getPattern()), k -> new ArrayList<>())
+                    .add(new LimitedRoute(name, route, meterRegistry));
+        });
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) return true;
+        List<LimitedRoute> candidates = routes.get(routeKey(request.getMethod(), pattern.toString()));
+        if (candidates == null) return true;
+        Long userId = currentUserId();
+        if (userId == null) return true;
+
+        for (LimitedRoute route : candidates) {
+            if (route.param != null && request.getParameter(route.param) == null) continue;
+            long waitNanos;
+            try {
+                waitNanos = rateLimiter.tryAcquire(route.name + ':' + userId, route.intervalNanos, route.capacity);
+            } catch (RuntimeException ex) {
+                // A limiter outage must not take the API down with it.
+                route.failed.increment();
+                log.warn("Rate limiter unavailable for {}: {}", route.name, ex.getMessage());
+                return true;
+            }
+            if (waitNanos > 0) {
+                route.rejected.increment();
+                throw new RateLimitExceededException(route.name, Duration.ofNanos(waitNanos));
+            }
+            route.allowed.increment();
+            return true;
+        }
+        return true;
+    }
+
+    private static Long currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated()) return null;
+        return auth.getPrincipal() instanceof UserDetailsImpl details ? details.getId() : null;
+    }
+
+    private static String routeKey(String method, String pattern) {
+        return method.toUpperCase(Locale.ROOT) + ' ' + pattern;
+    }
+
+    private static final class LimitedRoute {
+        private final String name;
+        private final String param;
+        private final long capacity;
+        private final long intervalNanos;
+        private final Counter allowed;
+        private final Counter rejected;
+        private final Counter failed;
+
+        private LimitedRoute(String name, RateLimitProperties.Route route, MeterRegistry registry) {
+            this.name = name;
+            this.param = route.getParam();
+            this.capacity = route.getCapacity();
+            this.intervalNanos = (long) (1_000_000_000L / route.getRefillPerSecond());
+            this.allowed = outcome(registry, name, "allowed");
+            this.rejected = outcome(registry, name, "rejected");
+            this.failed = outcome(registry, name, "error");
+        }
+
+        private static Counter outcome(MeterRegistry registry, String route, String outcome) {
+            return Counter.builder("http.ratelimit.requests")
+                    .description("Requests checked against a rate limit bucket, by route and outcome")
+                    .tag("route", route)
+                    .tag("outcome", outcome)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.devaxiom.safedocs.web;
+
+/**
+ * Token bucket per key, stored as its theoretical arrival time (GCRA): one timestamp per bucket, one
+ * compare-and-set (or one upsert) per request.
+ */
+public interface RateLimiter {
+
+    /**
+     * Takes one token from the bucket.
+     *
+     * @param intervalNanos time to refill one token
+     * @param capacity      bucket size, i.e. the burst allowed after a quiet period
+     * @return 0 when a token was taken, otherwise nanoseconds until one becomes available
+     */
+    long tryAcquire(String key, long intervalNanos, long capacity);
+}
@@ -0,0 +1,25 @@
+package org.devaxiom.safedocs.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.devaxiom.safedocs.config.RateLimitProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final RateLimitProperties rateLimitProperties;
+    private final RateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (rateLimitProperties.isEnabled() && !rateLimitProperties.getRoutes().isEmpty()) {
+            registry.addInterceptor(new RateLimitInterceptor(rateLimitProperties, rateLimiter, meterRegistry))
+                    .addPathPatterns("/api/**");
+        }
+    }
+}
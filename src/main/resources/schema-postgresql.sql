@@ -0,0 +1,71 @@
+-- PostgreSQL-only objects that cannot be expressed through JPA annotations.
+-- Runs after Hibernate's schema update (spring.jpa.defer-datasource-initialization), so every
+-- statement must be idempotent.
+
+-- Keyset pagination on case-insensitive title: matches ORDER BY lower(title), id
+CREATE INDEX IF NOT EXISTS idx_document_owner_title_ci_id
+    ON document (owner_id, visibility, status, lower(title), id);
+CREATE INDEX IF NOT EXISTS idx_document_family_title_ci_id
+    ON document (family_id, visibility, status, lower(title), id);
+
+-- Document search: weighted full-text vector for word/prefix matches and ranking,
+-- trigram indexes so infix LIKE '%term%' lookups on the same columns avoid a scan.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE document ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(title, '')), 'A')
+            || setweight(to_tsvector('simple', coalesce(category, '')), 'B')
+            || setweight(to_tsvector('simple', coalesce(file_name, '')), 'C')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_document_search_vector
+    ON document USING gin (search_vector);
+CREATE INDEX IF NOT EXISTS idx_document_title_trgm
+    ON document USING gin (lower(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_document_category_trgm
+    ON document USING gin (lower(category) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_document_file_name_trgm
+    ON document USING gin (lower(file_name) gin_trgm_ops);
+
+-- Shared-with-me lookups compare recipient_email by plain equality. Rows written before the entity
+-- normalized emails are lower-cased here, skipping any that would collide with an existing share.
+UPDATE document_share ds
+SET recipient_email = lower(trim(ds.recipient_email))
+WHERE ds.recipient_email <> lower(trim(ds.recipient_email))
+  AND NOT EXISTS (SELECT 1
+                  FROM document_share other
+                  WHERE other.document_id = ds.document_id
+                    AND other.recipient_email = lower(trim(ds.recipient_email)));
+
+-- document_access derivation matches shares to accounts on the normalized account email.
+CREATE INDEX IF NOT EXISTS idx_app_user_email_normalized
+    ON app_user (lower(trim(email)));
+
+-- Shared token buckets for safedocs.rate-limit.store=postgres: theoretical arrival time in epoch microseconds.
+CREATE TABLE IF NOT EXISTS rate_limit_bucket
+(
+    bucket_key varchar(200) PRIMARY KEY,
+    tat        bigint NOT NULL
+);
+
+-- Hibernate only creates the enum check constraint with the table; recreate it so new statuses (LEASED, CANCELLED) are accepted.
+ALTER TABLE permission_job DROP CONSTRAINT IF EXISTS permission_job_status_check;
+ALTER TABLE permission_job ADD CONSTRAINT permission_job_status_check
+    CHECK (status IN ('PENDING', 'LEASED', 'DONE', 'FAILED', 'CANCELLED'));
+
+-- Per-owner job feed counter: the last feed_seq handed out. Reserving positions locks the owner's row until
+-- commit, so feed_seq is assigned in commit order and a feed cursor never passes a job still being written.
+CREATE TABLE IF NOT EXISTS permission_job_feed
+(
+    owner_user_id bigint PRIMARY KEY,
+    last_seq      bigint NOT NULL
+);
+
+-- Jobs queued before feed_seq existed keep their id as position, which is what feed cursors held until then.
+UPDATE permission_job SET feed_seq = id WHERE feed_seq IS NULL;
+INSERT INTO permission_job_feed (owner_user_id, last_seq)
+SELECT owner_user_id, MAX(feed_seq)
+FROM permission_job
+GROUP BY owner_user_id
+ON CONFLICT (owner_user_id) DO NOTHING;
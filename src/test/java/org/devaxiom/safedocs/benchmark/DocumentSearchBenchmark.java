@@ -0,0 +1,162 @@
+package org.devaxiom.safedocs.benchmark;
+
+import com.sun.management.ThreadMXBean;
+import org.devaxiom.safedocs.dto.document.DocumentPageResponse;
+import org.devaxiom.safedocs.enums.DocumentStatus;
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+import org.devaxiom.safedocs.model.Document;
+import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.repository.DocumentRepository;
+import org.devaxiom.safedocs.repository.UserRepository;
+import org.devaxiom.safedocs.service.DocumentService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the database search path (tsvector + pg_trgm) with the previous in-memory scan.
+ * Needs a disposable PostgreSQL database: run with {@code ./gradlew benchmark} and
+ * SAFEDOCS_BENCH_PG_URL / _USER / _PASSWORD set. Sizes default to 10k, 100k and 1M documents
+ * and can be overridden with SAFEDOCS_BENCH_SIZES (comma separated).
+ */
+@Tag("benchmark")
+@EnabledIfEnvironmentVariable(named = "SAFEDOCS_BENCH_PG_URL", matches = ".+")
+@SpringBootTest(properties = {
+        "spring.datasource.url=${SAFEDOCS_BENCH_PG_URL}",
+        "spring.datasource.username=${SAFEDOCS_BENCH_PG_USER:root}",
+        "spring.datasource.password=${SAFEDOCS_BENCH_PG_PASSWORD:test}",
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.jpa.defer-datasource-initialization=true",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.platform=postgresql",
+        "safedocs.cache.document-list.enabled=false"
+})
+class DocumentSearchBenchmark {
+
+    private static final String SEARCH = "insur";
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void searchDatabaseVersusInMemory() {
+        for (int size : sizes()) {
+            User owner = seedOwner(size);
+            try {
+                Result db = measure(() -> transactionTemplate.execute(status -> databaseSearch(owner).total()));
+                Result memory = measure(() -> transactionTemplate.execute(status -> inMemorySearch(owner)));
+                assertEquals(memory.total(), db.total(), "both paths must agree on the match count");
+                System.out.printf("[bench] docs=%,d matches=%,d | db p50=%.1fms alloc=%,dKB | in-memory p50=%.1fms alloc=%,dKB%n",
+                        size, db.total(), db.p50Millis(), db.allocatedKb(), memory.p50Millis(), memory.allocatedKb());
+            } finally {
+                cleanup(owner);
+            }
+        }
+    }
+
+    private DocumentPageResponse databaseSearch(User owner) {
+        DocumentService.DocumentFilter filter = new DocumentService.DocumentFilter(
+                DocumentVisibility.PERSONAL, null, SEARCH, 0, 20, null, null, false, null, null, null, null, null);
+        return documentService.listWithFilters(filter, owner);
+    }
+
+    // The pre-tsvector implementation: hydrate every ACTIVE document, then filter with String.contains.
+    private long inMemorySearch(User owner) {
+        List<Document> docs = documentRepository.findByOwnerIdAndVisibilityAndStatus(
+                owner.getId(), DocumentVisibility.PERSONAL, DocumentStatus.ACTIVE, Sort.by("title"));
+        return docs.stream()
+                .filter(doc -> (doc.getTitle() != null && doc.getTitle().toLowerCase().contains(SEARCH))
+                        || (doc.getCategory() != null && doc.getCategory().toLowerCase().contains(SEARCH))
+                        || (doc.getFileName() != null && doc.getFileName().toLowerCase().contains(SEARCH)))
+                .count();
+    }
+
+    private Result measure(Supplier<Long> run) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long total = 0;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            total = run.get();
+        }
+        List<Long> nanos = new ArrayList<>();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            total = run.get();
+            nanos.add(System.nanoTime() - start);
+        }
+        long allocated = (threads.getThreadAllocatedBytes(threadId) - allocatedBefore) / MEASURED_RUNS;
+        Collections.sort(nanos);
+        return new Result(total, nanos.get(nanos.size() / 2) / 1_000_000.0, allocated / 1024);
+    }
+
+    private User seedOwner(int size) {
+        User owner = userRepository.save(User.builder()
+                .email("bench-" + UUID.randomUUID() + "@safedocs.test")
+                .passwordHash("x")
+                .firstName("Bench")
+                .lastName("Owner")
+                .build());
+        jdbcTemplate.update("""
+                INSERT INTO document (public_id, owner_id, visibility, title, file_name, category, drive_file_id,
+                                      storage_provider, reference_type, status, size_bytes, created_date, last_modified_date)
+                SELECT gen_random_uuid(), ?, 'PERSONAL',
+                       (ARRAY['Passport', 'Tax Return', 'Invoice', 'Lease Agreement', 'Insurance Policy',
+                              'Medical Report', 'Bank Statement', 'Receipt'])[1 + n % 8] || ' ' || n,
+                       'scan_' || n || '.pdf',
+                       (ARRAY['ID', 'Finance', 'Home', 'Health'])[1 + n % 4],
+                       'bench-' || n, 'DRIVE', 'FILE', 'ACTIVE', n * 10,
+                       now() - (n || ' minutes')::interval, now()
+                FROM generate_series(1, ?) AS n
+                """, owner.getId(), size);
+        jdbcTemplate.execute("ANALYZE document");
+        return owner;
+    }
+
+    private void cleanup(User owner) {
+        jdbcTemplate.update("DELETE FROM document WHERE owner_id = ?", owner.getId());
+        jdbcTemplate.update("DELETE FROM app_user WHERE id = ?", owner.getId());
+    }
+
+    private List<Integer> sizes() {
+        String raw = System.getenv().getOrDefault("SAFEDOCS_BENCH_SIZES", "10000,100000,1000000");
+        return Arrays.stream(raw.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(Integer::parseInt)
+                .toList();
+    }
+
+    private record Result(long total, double p50Millis, long allocatedKb) {
+    }
+}
@@ -0,0 +1,118 @@
+package org.devaxiom.safedocs.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.ThreadMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.devaxiom.safedocs.config.UserAuthCacheProperties;
+import org.devaxiom.safedocs.repository.UserAuthState;
+import org.devaxiom.safedocs.repository.UserRepository;
+import org.devaxiom.safedocs.security.AuthEntryPoint;
+import org.devaxiom.safedocs.security.JwtAuthenticationProvider;
+import org.devaxiom.safedocs.security.JwtConfig;
+import org.devaxiom.safedocs.security.JwtFilter;
+import org.devaxiom.safedocs.security.JwtService;
+import org.devaxiom.safedocs.security.UserAuthStateCache;
+import org.devaxiom.safedocs.security.UserDetailsImpl;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes allocated per request by {@link JwtFilter} on the authenticated path (warm token and user caches)
+ * and on a public endpoint, asserted against a budget. No database is needed; run with
+ * {@code ./gradlew benchmark}. The budget defaults to 8 KB and can be overridden with
+ * SAFEDOCS_BENCH_JWT_ALLOC_BUDGET (bytes).
+ */
+@Tag("benchmark")
+class JwtFilterAllocationBenchmark {
+
+    private static final String SECRET = "MCsAzvFBHnAv0CWIZonhazMPmT2kkrTSQ8JOVHSRnI8Xo8hdrnRcTQkI6ux3JNJx";
+    private static final int WARMUP_REQUESTS = 50_000;
+    private static final int MEASURED_REQUESTS = 20_000;
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @Test
+    void authenticatedRequestStaysWithinAllocationBudget() throws Exception {
+        UserAuthState state = new UserAuthState(42L, "bench@example.com", "bench@example.com", 3L, true, false);
+        JwtService jwtService = jwtService();
+        UserAuthStateCache userAuthStateCache = new UserAuthStateCache(
+                new UserAuthCacheProperties(), userRepository(state), null, null, new SimpleMeterRegistry());
+        JwtFilter filter = new JwtFilter(
+                new AuthEntryPoint(new ObjectMapper()),
+                new JwtAuthenticationProvider(jwtService, userAuthStateCache),
+                new SimpleMeterRegistry());
+
+        UserDetailsImpl principal = new UserDetailsImpl(42L, "bench@example.com", null, null, true, false, 3L);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        String token = jwtService.generateJwtToken();
+        SecurityContextHolder.clearContext();
+
+        MockHttpServletRequest authRequest = new MockHttpServletRequest("GET", "/api/documents");
+        authRequest.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletRequest publicRequest = new MockHttpServletRequest("GET", "/api/health");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        long authBytes = bytesPerRequest(filter, authRequest, response);
+        long publicBytes = bytesPerRequest(filter, publicRequest, response);
+        assertEquals(200, response.getStatus(), "requests must pass the filter");
+
+        long budget = Long.parseLong(System.getenv().getOrDefault("SAFEDOCS_BENCH_JWT_ALLOC_BUDGET", "8192"));
+        System.out.printf("[bench] JwtFilter alloc/request: authenticated=%,dB public=%,dB (budget %,dB)%n",
+                authBytes, publicBytes, budget);
+        assertTrue(authBytes <= budget, "authenticated request allocated " + authBytes + "B, budget " + budget + "B");
+    }
+
+    private long bytesPerRequest(JwtFilter filter, MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            doFilter(filter, request, response);
+        }
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_REQUESTS; i++) {
+            doFilter(filter, request, response);
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_REQUESTS;
+    }
+
+    private void doFilter(JwtFilter filter, MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        // OncePerRequestFilter marks the request as filtered; each iteration stands for a fresh request.
+        request.clearAttributes();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        SecurityContextHolder.clearContext();
+    }
+
+    private static JwtService jwtService() throws Exception {
+        JwtConfig config = new JwtConfig();
+        config.setSecret(SECRET);
+        config.setCompressTokens(false);
+        JwtService service = new JwtService(config);
+        Method init = JwtService.class.getDeclaredMethod("init");
+        init.setAccessible(true);
+        init.invoke(service);
+        return service;
+    }
+
+    private static UserRepository userRepository(UserAuthState state) {
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findAuthStateById")) return Optional.of(state);
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,222 @@
+package org.devaxiom.safedocs.benchmark;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.repository.UserRepository;
+import org.devaxiom.safedocs.security.JwtService;
+import org.devaxiom.safedocs.security.UserDetailsImpl;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Closed-loop HTTP load against {@code GET /api/documents} (JWT auth, search query, count query) with the same
+ * fixed Hikari pool, once on Tomcat platform threads and once on virtual threads; compare the two
+ * {@code [bench]} lines for throughput and tail latency. Needs a disposable PostgreSQL database: run with
+ * {@code ./gradlew benchmark} and SAFEDOCS_BENCH_PG_URL / _USER / _PASSWORD set. Concurrency (default 400),
+ * duration in seconds (default 20) and pool size (default 10) can be overridden with
+ * SAFEDOCS_BENCH_CONCURRENCY, SAFEDOCS_BENCH_SECONDS and SAFEDOCS_BENCH_POOL.
+ */
+@Tag("benchmark")
+@EnabledIfEnvironmentVariable(named = "SAFEDOCS_BENCH_PG_URL", matches = ".+")
+abstract class RequestLoadBenchmark {
+
+    private static final int DOCUMENTS = 5_000;
+    private static final String PATH = "/api/documents?visibility=PERSONAL&search=insur&size=20";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    abstract String mode();
+
+    @Test
+    void documentListUnderLoad() throws Exception {
+        int concurrency = intEnv("SAFEDOCS_BENCH_CONCURRENCY", 400);
+        long durationNanos = intEnv("SAFEDOCS_BENCH_SECONDS", 20) * 1_000_000_000L;
+        User owner = seedOwner();
+        try {
+            String token = tokenFor(owner);
+            HttpClient client = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + PATH))
+                    .header("Authorization", "Bearer " + token)
+                    .GET()
+                    .build();
+
+            run(client, request, concurrency, 3_000_000_000L); // warm-up
+            AtomicLong errors = new AtomicLong();
+            long start = System.nanoTime();
+            long[] latencies = run(client, request, concurrency, durationNanos, errors);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            Arrays.sort(latencies);
+            Counter pinned = meterRegistry.find("jvm.threads.virtual.pinned").counter();
+            System.out.printf("[bench] %s threads, pool=%s, clients=%d: %,.0f req/s p50=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms errors=%d pinned=%s%n",
+                    mode(), System.getenv().getOrDefault("SAFEDOCS_BENCH_POOL", "10"), concurrency,
+                    latencies.length / seconds, pct(latencies, 0.50), pct(latencies, 0.99), pct(latencies, 0.999),
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6, errors.get(),
+                    pinned != null ? (long) pinned.count() : "n/a");
+            assertEquals(0, errors.get(), "all requests must succeed");
+        } finally {
+            cleanup(owner);
+        }
+    }
+
+    private long[] run(HttpClient client, HttpRequest request, int concurrency, long durationNanos) throws Exception {
+        return run(client, request, concurrency, durationNanos, new AtomicLong());
+    }
+
+    private long[] run(HttpClient client, HttpRequest request, int concurrency, long durationNanos, AtomicLong errors) throws Exception {
+        long deadline = System.nanoTime() + durationNanos;
+        List<Future<List<Long>>> clients = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.add(executor.submit(() -> {
+                    List<Long> own = new ArrayList<>();
+                    while (System.nanoTime() < deadline) {
+                        long sent = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        own.add(System.nanoTime() - sent);
+                        if (response.statusCode() != 200) errors.incrementAndGet();
+                    }
+                    return own;
+                }));
+            }
+        }
+        List<Long> all = new ArrayList<>();
+        for (Future<List<Long>> f : clients) {
+            all.addAll(f.get());
+        }
+        return all.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private User seedOwner() {
+        User owner = userRepository.save(User.builder()
+                .publicId(UUID.randomUUID())
+                .email("load-" + UUID.randomUUID() + "@safedocs.test")
+                .passwordHash("x")
+                .firstName("Load")
+                .lastName("Owner")
+                .build());
+        jdbcTemplate.update("""
+                INSERT INTO document (public_id, owner_id, visibility, title, file_name, category, drive_file_id,
+                                      storage_provider, reference_type, status, size_bytes, created_date, last_modified_date)
+                SELECT gen_random_uuid(), ?, 'PERSONAL',
+                       (ARRAY['Passport', 'Tax Return', 'Invoice', 'Insurance Policy'])[1 + n % 4] || ' ' || n,
+                       'scan_' || n || '.pdf', 'Finance', 'load-' || n, 'DRIVE', 'FILE', 'ACTIVE', n * 10,
+                       now() - (n || ' minutes')::interval, now()
+                FROM generate_series(1, ?) AS n
+                """, owner.getId(), DOCUMENTS);
+        jdbcTemplate.execute("ANALYZE document");
+        return owner;
+    }
+
+    private String tokenFor(User owner) {
+        UserDetailsImpl details = UserDetailsImpl.from(owner);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(details, null, details.getAuthorities()));
+        try {
+            return jwtService.generateJwtToken();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private void cleanup(User owner) {
+        jdbcTemplate.update("DELETE FROM document WHERE owner_id = ?", owner.getId());
+        jdbcTemplate.update("DELETE FROM app_user WHERE id = ?", owner.getId());
+    }
+
+    private static double pct(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    private static int intEnv(String name, int fallback) {
+        String raw = System.getenv(name);
+        return raw == null || raw.isBlank() ? fallback : Integer.parseInt(raw.trim());
+    }
+
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.datasource.url=${SAFEDOCS_BENCH_PG_URL}",
+            "spring.datasource.username=${SAFEDOCS_BENCH_PG_USER:root}",
+            "spring.datasource.password=${SAFEDOCS_BENCH_PG_PASSWORD:test}",
+            "spring.datasource.driver-class-name=org.postgresql.Driver",
+            "spring.jpa.hibernate.ddl-auto=update",
+            "spring.jpa.defer-datasource-initialization=true",
+            "spring.sql.init.mode=always",
+            "spring.sql.init.platform=postgresql",
+            "spring.datasource.hikari.maximum-pool-size=${SAFEDOCS_BENCH_POOL:10}",
+            "spring.jpa.show-sql=false",
+            "logging.level.root=WARN",
+            "logging.level.org.devaxiom.safedocs=WARN",
+            "logging.level.org.hibernate=WARN",
+            "safedocs.cache.document-list.enabled=false",
+            "safedocs.rate-limit.enabled=false",
+            "spring.threads.virtual.enabled=false"
+    })
+    static class PlatformThreads extends RequestLoadBenchmark {
+        @Override
+        String mode() {
+            return "platform";
+        }
+    }
+
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.datasource.url=${SAFEDOCS_BENCH_PG_URL}",
+            "spring.datasource.username=${SAFEDOCS_BENCH_PG_USER:root}",
+            "spring.datasource.password=${SAFEDOCS_BENCH_PG_PASSWORD:test}",
+            "spring.datasource.driver-class-name=org.postgresql.Driver",
+            "spring.jpa.hibernate.ddl-auto=update",
+            "spring.jpa.defer-datasource-initialization=true",
+            "spring.sql.init.mode=always",
+            "spring.sql.init.platform=postgresql",
+            "spring.datasource.hikari.maximum-pool-size=${SAFEDOCS_BENCH_POOL:10}",
+            "spring.jpa.show-sql=false",
+            "logging.level.root=WARN",
+            "logging.level.org.devaxiom.safedocs=WARN",
+            "logging.level.org.hibernate=WARN",
+            "safedocs.cache.document-list.enabled=false",
+            "safedocs.rate-limit.enabled=false",
+            "spring.threads.virtual.enabled=true"
+    })
+    static class VirtualThreads extends RequestLoadBenchmark {
+        @Override
+        String mode() {
+            return "virtual";
+        }
+    }
+}
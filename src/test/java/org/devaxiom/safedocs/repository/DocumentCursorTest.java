@@ -0,0 +1,78 @@
+package org.devaxiom.safedocs.repository;
+
+import org.devaxiom.safedocs.enums.DocumentSortField;
+import org.devaxiom.safedocs.enums.DocumentStatus;
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DocumentCursorTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 3, 9, 14, 5, 7, 123_456_000);
+
+    @Test
+    void roundTripsEverySortKey() {
+        DocumentListRow row = row(42L, "Ärzte | Befund", "ärzte | befund", 1_024L, CREATED);
+        for (DocumentSortField sort : new DocumentSortField[]{
+                DocumentSortField.TITLE, DocumentSortField.CREATED_DATE,
+                DocumentSortField.SIZE_BYTES, DocumentSortField.LAST_MODIFIED_DATE}) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                DocumentCursor cursor = DocumentCursor.after(row, sort, direction);
+                assertEquals(cursor, DocumentCursor.decode(cursor.encode()), sort + " " + direction);
+            }
+        }
+    }
+
+    @Test
+    void titleKeyIsTheDatabaseLowerCasedTitle() {
+        // The key must match SQL lower(title), which the JVM's case mapping may not reproduce.
+        DocumentListRow row = row(7L, "İstanbul", "i̇stanbul-db", null, CREATED);
+        assertEquals("i̇stanbul-db", DocumentCursor.after(row, DocumentSortField.TITLE, Sort.Direction.ASC).key());
+    }
+
+    @Test
+    void roundTripsNullKeys() {
+        DocumentListRow row = row(3L, null, null, null, null);
+        DocumentCursor cursor = DocumentCursor.after(row, DocumentSortField.SIZE_BYTES, Sort.Direction.DESC);
+        DocumentCursor decoded = DocumentCursor.decode(cursor.encode());
+        assertNull(decoded.key());
+        assertEquals(3L, decoded.id());
+    }
+
+    @Test
+    void rejectsMalformedInputWithIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> DocumentCursor.decode("%%%not-base64"));
+        assertThrows(IllegalArgumentException.class, () -> DocumentCursor.decode(encode("TITLE|ASC|1")));
+        assertThrows(IllegalArgumentException.class, () -> DocumentCursor.decode(encode("NAME|ASC|1|Vx")));
+        assertThrows(IllegalArgumentException.class, () -> DocumentCursor.decode(encode("TITLE|UP|1|Vx")));
+        assertThrows(IllegalArgumentException.class, () -> DocumentCursor.decode(encode("TITLE|ASC|one|Vx")));
+        assertThrows(IllegalArgumentException.class, () -> DocumentCursor.decode(encode("TITLE|ASC|1|x")));
+        assertThrows(IllegalArgumentException.class, () -> DocumentCursor.decode(encode("SIZE_BYTES|ASC|1|Vbig")));
+        assertThrows(IllegalArgumentException.class, () -> DocumentCursor.decode(encode("RELEVANCE|DESC|1|V0.5")));
+    }
+
+    @Test
+    void rejectsTamperedDatesWithIllegalArgument() {
+        assertThrows(IllegalArgumentException.class, () -> DocumentCursor.decode(encode("CREATED_DATE|ASC|1|V2024-13-40T99:00")));
+        assertThrows(IllegalArgumentException.class, () -> DocumentCursor.decode(encode("LAST_MODIFIED_DATE|DESC|1|Vyesterday")));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static DocumentListRow row(Long id, String title, String titleKey, Long sizeBytes, LocalDateTime created) {
+        return new DocumentListRow(id, created, created, UUID.randomUUID(), "drive-" + id, "file.pdf", title,
+                "application/pdf", sizeBytes, DocumentVisibility.PERSONAL, null, null, null, null,
+                DocumentStatus.ACTIVE, titleKey);
+    }
+}
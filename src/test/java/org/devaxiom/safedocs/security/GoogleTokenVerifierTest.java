@@ -0,0 +1,210 @@
+package org.devaxiom.safedocs.security;
+
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.gson.GsonFactory;
+import com.sun.net.httpserver.HttpServer;
+import org.devaxiom.safedocs.exception.BadRequestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs the verifier against a local stand-in for Google's certificate endpoint, serving self-signed
+ * certificates for locally generated RSA keys.
+ */
+class GoogleTokenVerifierTest {
+
+    private static final String CLIENT_ID = "safedocs-test.apps.googleusercontent.com";
+
+    private final AtomicInteger certFetches = new AtomicInteger();
+    private final AtomicLong keysClock = new AtomicLong(System.currentTimeMillis());
+    private volatile String certsJson;
+    private HttpServer server;
+    private GoogleTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/oauth2/v1/certs", exchange -> {
+            certFetches.incrementAndGet();
+            byte[] body = certsJson.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("Cache-Control", "public, max-age=3600");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        GoogleOAuthProperties properties = new GoogleOAuthProperties();
+        properties.setClientId(CLIENT_ID);
+        properties.setCertsUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/oauth2/v1/certs");
+        properties.setForcedRefreshInterval(Duration.ofMinutes(1));
+        GooglePublicKeysManager keys = new GooglePublicKeysManager.Builder(new NetHttpTransport(), GsonFactory.getDefaultInstance())
+                .setPublicCertsEncodedUrl(properties.getCertsUrl())
+                .setClock(keysClock::get)
+                .build();
+        verifier = new GoogleTokenVerifier(properties, keys);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void verifiesATokenSignedWithAServedKey() throws Exception {
+        KeyPair key = rsaKey();
+        serve("k1", key);
+
+        GoogleTokenVerifier.GoogleProfile profile = verifier.verify(idToken(key, CLIENT_ID, "Ada@Example.com"));
+
+        assertEquals("google-sub-1", profile.providerId());
+        assertEquals("ada@example.com", profile.email());
+        assertEquals("Ada", profile.givenName());
+        assertEquals(1, certFetches.get());
+    }
+
+    @Test
+    void rejectsForeignKeysAndAudiences() throws Exception {
+        KeyPair served = rsaKey();
+        serve("k1", served);
+
+        assertThrows(BadRequestException.class, () -> verifier.verify(idToken(rsaKey(), CLIENT_ID, "ada@example.com")));
+        assertThrows(BadRequestException.class, () -> verifier.verify(idToken(served, "someone-else", "ada@example.com")));
+    }
+
+    @Test
+    void aMissingClientIdFailsTheLoginNotTheConstructor() throws Exception {
+        KeyPair key = rsaKey();
+        serve("k1", key);
+        GoogleOAuthProperties properties = new GoogleOAuthProperties();
+        properties.setCertsUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/oauth2/v1/certs");
+        GoogleTokenVerifier unconfigured = new GoogleTokenVerifier(properties, new GooglePublicKeysManager.Builder(
+                new NetHttpTransport(), GsonFactory.getDefaultInstance())
+                .setPublicCertsEncodedUrl(properties.getCertsUrl())
+                .build());
+
+        assertThrows(BadRequestException.class, () -> unconfigured.verify(idToken(key, CLIENT_ID, "ada@example.com")));
+        assertEquals(0, certFetches.get());
+    }
+
+    @Test
+    void picksUpARotatedKeyThroughARateLimitedForcedRefresh() throws Exception {
+        KeyPair first = rsaKey();
+        serve("k1", first);
+        verifier.verify(idToken(first, CLIENT_ID, "ada@example.com"));
+        assertEquals(1, certFetches.get());
+
+        // Rotated before the cached certificates expire: the failed check re-fetches once and succeeds.
+        KeyPair second = rsaKey();
+        serve("k2", second);
+        verifier.verify(idToken(second, CLIENT_ID, "ada@example.com"));
+        assertEquals(2, certFetches.get());
+
+        // Another unknown key within forced-refresh-interval is rejected without hitting the endpoint.
+        KeyPair third = rsaKey();
+        serve("k3", third);
+        String token = idToken(third, CLIENT_ID, "ada@example.com");
+        assertThrows(BadRequestException.class, () -> verifier.verify(token));
+        assertEquals(2, certFetches.get());
+
+        keysClock.addAndGet(Duration.ofSeconds(61).toMillis());
+        verifier.verify(token);
+        assertEquals(3, certFetches.get());
+    }
+
+    private void serve(String kid, KeyPair key) throws GeneralSecurityException {
+        String pem = "-----BEGIN CERTIFICATE-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(selfSignedCertificate(key))
+                + "\n-----END CERTIFICATE-----\n";
+        certsJson = "{\"" + kid + "\": \"" + pem.replace("\n", "\\n") + "\"}";
+    }
+
+    private static KeyPair rsaKey() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        return generator.generateKeyPair();
+    }
+
+    private static String idToken(KeyPair key, String audience, String email) throws GeneralSecurityException {
+        long now = Instant.now().getEpochSecond();
+        String header = "{\"alg\":\"RS256\",\"typ\":\"JWT\"}";
+        String payload = "{\"iss\":\"https://accounts.google.com\",\"aud\":\"" + audience + "\",\"sub\":\"google-sub-1\","
+                + "\"email\":\"" + email + "\",\"email_verified\":true,\"given_name\":\"Ada\","
+                + "\"iat\":" + now + ",\"exp\":" + (now + 600) + "}";
+        String signingInput = base64Url(header.getBytes(StandardCharsets.UTF_8)) + "." + base64Url(payload.getBytes(StandardCharsets.UTF_8));
+        return signingInput + "." + base64Url(sign(key, signingInput.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    // Minimal X.509 v1 certificate: the verifier only reads the public key, but the JDK parser needs the full structure.
+    private static byte[] selfSignedCertificate(KeyPair key) throws GeneralSecurityException {
+        byte[] sha256WithRsa = der(0x30, concat(
+                der(0x06, new byte[]{0x2a, (byte) 0x86, 0x48, (byte) 0x86, (byte) 0xf7, 0x0d, 0x01, 0x01, 0x0b}),
+                der(0x05, new byte[0])));
+        byte[] name = der(0x30, der(0x31, der(0x30, concat(
+                der(0x06, new byte[]{0x55, 0x04, 0x03}),
+                der(0x0c, "safedocs-test".getBytes(StandardCharsets.UTF_8))))));
+        byte[] validity = der(0x30, concat(
+                der(0x17, "250101000000Z".getBytes(StandardCharsets.US_ASCII)),
+                der(0x17, "491231235959Z".getBytes(StandardCharsets.US_ASCII))));
+        byte[] tbs = der(0x30, concat(der(0x02, new byte[]{0x01}), sha256WithRsa, name, validity, name,
+                key.getPublic().getEncoded()));
+        byte[] signature = concat(new byte[]{0x00}, sign(key, tbs));
+        return der(0x30, concat(tbs, sha256WithRsa, der(0x03, signature)));
+    }
+
+    private static byte[] sign(KeyPair key, byte[] data) throws GeneralSecurityException {
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(key.getPrivate());
+        signature.update(data);
+        return signature.sign();
+    }
+
+    private static byte[] der(int tag, byte[] content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(tag);
+        int length = content.length;
+        if (length < 0x80) {
+            out.write(length);
+        } else if (length < 0x100) {
+            out.write(0x81);
+            out.write(length);
+        } else {
+            out.write(0x82);
+            out.write(length >> 8);
+            out.write(length & 0xff);
+        }
+        out.writeBytes(content);
+        return out.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) out.writeBytes(part);
+        return out.toByteArray();
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
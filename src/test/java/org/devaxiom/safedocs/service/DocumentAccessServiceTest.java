@@ -0,0 +1,208 @@
+package org.devaxiom.safedocs.service;
+
+import org.devaxiom.safedocs.enums.DocumentShareStatus;
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+import org.devaxiom.safedocs.enums.FamilyRole;
+import org.devaxiom.safedocs.model.Document;
+import org.devaxiom.safedocs.model.DocumentShare;
+import org.devaxiom.safedocs.model.Family;
+import org.devaxiom.safedocs.model.FamilyMember;
+import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.repository.DocumentShareRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentAccessServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private DocumentAccessService documentAccessService;
+
+    @Autowired
+    private DocumentShareRepository documentShareRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void derivesOwnerFamilyAndShareGrants() {
+        User owner = newUser();
+        User head = newUser();
+        User contributor = newUser();
+        User viewer = newUser();
+        User reader = newUser();
+        User editor = newUser();
+        User outsider = newUser();
+        Family family = newFamily();
+        addMember(family, head, FamilyRole.HEAD);
+        addMember(family, contributor, FamilyRole.CONTRIBUTOR);
+        addMember(family, viewer, FamilyRole.VIEWER);
+        Document personal = newDocument(owner, DocumentVisibility.PERSONAL, null);
+        Document familyDoc = newDocument(head, DocumentVisibility.FAMILY, family);
+        Document shared = newDocument(owner, DocumentVisibility.SHARED, null);
+        share(shared, reader.getEmail(), false);
+        share(shared, editor.getEmail(), true);
+        // Accounts created before emails were normalized still match their shares.
+        jdbcTemplate.update("UPDATE app_user SET email = ? WHERE id = ?", " " + editor.getEmail().toUpperCase() + " ", editor.getId());
+        share(personal, outsider.getEmail(), false);
+
+        documentAccessService.refreshDocuments(List.of(personal.getId(), familyDoc.getId(), shared.getId()));
+
+        assertEquals(Map.of(owner.getId(), "OWNER"), grants(personal));
+        assertEquals(Map.of(head.getId(), "WRITER", contributor.getId(), "WRITER", viewer.getId(), "READER"), grants(familyDoc));
+        assertEquals(Map.of(owner.getId(), "OWNER", reader.getId(), "READER", editor.getId(), "WRITER"), grants(shared));
+        assertFalse(documentAccessService.canView(outsider.getId(), personal.getId()));
+    }
+
+    @Test
+    void revokedSharesAndRemovedMembersLoseAccess() {
+        User owner = newUser();
+        User reader = newUser();
+        User member = newUser();
+        Family family = newFamily();
+        addMember(family, owner, FamilyRole.HEAD);
+        addMember(family, member, FamilyRole.VIEWER);
+        Document shared = newDocument(owner, DocumentVisibility.SHARED, null);
+        Document familyDoc = newDocument(owner, DocumentVisibility.FAMILY, family);
+        DocumentShare share = share(shared, reader.getEmail(), false);
+        documentAccessService.refreshDocuments(List.of(shared.getId(), familyDoc.getId()));
+        assertTrue(documentAccessService.canView(reader.getId(), shared.getId()));
+        assertTrue(documentAccessService.canView(member.getId(), familyDoc.getId()));
+
+        share.setStatus(DocumentShareStatus.REVOKED);
+        documentShareRepository.save(share);
+        documentAccessService.refreshDocuments(List.of(shared.getId()));
+        FamilyMember membership = familyMemberRepository.findByFamilyIdAndUserIdAndActiveTrue(family.getId(), member.getId()).orElseThrow();
+        membership.setActive(false);
+        familyMemberRepository.save(membership);
+        documentAccessService.refreshUser(member.getId());
+
+        assertFalse(documentAccessService.canView(reader.getId(), shared.getId()));
+        assertFalse(documentAccessService.canView(member.getId(), familyDoc.getId()));
+        assertTrue(documentAccessService.canView(owner.getId(), familyDoc.getId()));
+    }
+
+    @Test
+    void signUpPicksUpEarlierShares() {
+        User owner = newUser();
+        Document shared = newDocument(owner, DocumentVisibility.SHARED, null);
+        String email = "later-" + UUID.randomUUID() + "@safedocs.test";
+        share(shared, email, true);
+        documentAccessService.refreshDocuments(List.of(shared.getId()));
+        assertEquals(Map.of(owner.getId(), "OWNER"), grants(shared));
+
+        User joined = userRepository.save(User.builder()
+                .email(email.toUpperCase())
+                .passwordHash("x")
+                .firstName("Late")
+                .lastName("Joiner")
+                .build());
+        documentAccessService.refreshUser(joined.getId());
+
+        assertEquals(Map.of(owner.getId(), "OWNER", joined.getId(), "WRITER"), grants(shared));
+    }
+
+    @Test
+    void verifyReportsAndRepairsDrift() {
+        User owner = newUser();
+        User reader = newUser();
+        Document shared = newDocument(owner, DocumentVisibility.SHARED, null);
+        share(shared, reader.getEmail(), false);
+        Document personal = newDocument(owner, DocumentVisibility.PERSONAL, null);
+        // Other test classes write documents without refreshing; start from a consistent table.
+        documentAccessService.rebuild();
+        assertEquals(new DocumentAccessService.VerificationReport(count(), 0, 0, false), documentAccessService.verify(false));
+
+        jdbcTemplate.update("DELETE FROM document_access WHERE user_id = ? AND document_id = ?", reader.getId(), shared.getId());
+        jdbcTemplate.update("INSERT INTO document_access (user_id, document_id, access_level) VALUES (?, ?, 'READER')",
+                reader.getId(), personal.getId());
+
+        DocumentAccessService.VerificationReport report = documentAccessService.verify(false);
+        assertEquals(1, report.missing());
+        assertEquals(1, report.stale());
+        assertFalse(report.repaired());
+        assertFalse(documentAccessService.canView(reader.getId(), shared.getId()));
+
+        assertTrue(documentAccessService.verify(true).repaired());
+        assertEquals(new DocumentAccessService.VerificationReport(count(), 0, 0, false), documentAccessService.verify(false));
+        assertTrue(documentAccessService.canView(reader.getId(), shared.getId()));
+        assertFalse(documentAccessService.canView(reader.getId(), personal.getId()));
+    }
+
+    @Test
+    void overlappingRefreshesTakeTurns() throws Exception {
+        User owner = newUser();
+        User reader = newUser();
+        Document shared = newDocument(owner, DocumentVisibility.SHARED, null);
+        DocumentShare share = share(shared, reader.getEmail(), false);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        CountDownLatch userRefreshed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // The reader's refresh derives the grant while the share is active, and holds on before committing.
+        CompletableFuture<Void> userRefresh = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+            documentAccessService.refreshUser(reader.getId());
+            userRefreshed.countDown();
+            await(release);
+        }));
+        assertTrue(userRefreshed.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Void> revoke = CompletableFuture.runAsync(() -> tx.executeWithoutResult(status -> {
+            share.setStatus(DocumentShareStatus.REVOKED);
+            documentShareRepository.save(share);
+            documentAccessService.refreshDocuments(List.of(shared.getId()));
+        }));
+        assertThrows(TimeoutException.class, () -> revoke.get(500, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        userRefresh.get(10, TimeUnit.SECONDS);
+        revoke.get(10, TimeUnit.SECONDS);
+
+        assertFalse(documentAccessService.canView(reader.getId(), shared.getId()));
+    }
+
+    private DocumentShare share(Document document, String email, boolean canEdit) {
+        return documentShareRepository.save(DocumentShare.builder()
+                .document(document)
+                .recipientEmail(email)
+                .canEdit(canEdit)
+                .build());
+    }
+
+    private Map<Long, String> grants(Document document) {
+        Map<Long, String> grants = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, access_level FROM document_access WHERE document_id = ?",
+                rs -> {
+                    grants.put(rs.getLong("user_id"), rs.getString("access_level"));
+                }, document.getId());
+        return grants;
+    }
+
+    private long count() {
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM document_access", Long.class);
+        return rows != null ? rows : 0;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.devaxiom.safedocs.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.devaxiom.safedocs.dto.document.BulkDeleteDocumentsRequest;
+import org.devaxiom.safedocs.dto.document.BulkDeleteDocumentsResponse;
+import org.devaxiom.safedocs.dto.document.BulkUpdateDocumentSubjectRequest;
+import org.devaxiom.safedocs.dto.document.BulkUpdateDocumentSubjectResponse;
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+import org.devaxiom.safedocs.enums.FamilyRole;
+import org.devaxiom.safedocs.model.Document;
+import org.devaxiom.safedocs.model.Family;
+import org.devaxiom.safedocs.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.devaxiom.safedocs.dto.document.BulkUpdateDocumentSubjectResponse.BulkFailureReason.NOT_FOUND;
+import static org.devaxiom.safedocs.dto.document.BulkUpdateDocumentSubjectResponse.BulkFailureReason.PERMISSION_DENIED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Bulk update/delete authorization end to end: which documents each caller may change, and how refusals are
+ * reported. Family roles come from the membership index, so the statement count of a bulk request must not grow
+ * with the number of documents.
+ */
+class DocumentAuthorizerTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private DocumentAuthorizer documentAuthorizer;
+
+    @Autowired
+    private FamilyMembershipIndex familyMembershipIndex;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User owner;
+    private User head;
+    private User contributor;
+    private User viewer;
+    private User outsider;
+    private Family family;
+    private Document personal;
+    private Document shared;
+    private Document familyByHead;
+    private Document familyByViewer;
+
+    @BeforeEach
+    void setUp() {
+        owner = newUser();
+        head = newUser();
+        contributor = newUser();
+        viewer = newUser();
+        outsider = newUser();
+        family = newFamily();
+        addMember(family, head, FamilyRole.HEAD);
+        addMember(family, contributor, FamilyRole.CONTRIBUTOR);
+        addMember(family, viewer, FamilyRole.VIEWER);
+        // The rows were written directly; repair the index from them (no NOTIFY, so no listener queries later).
+        familyMembershipIndex.verify(true);
+        personal = newDocument(owner, DocumentVisibility.PERSONAL, null);
+        shared = newDocument(owner, DocumentVisibility.SHARED, null);
+        familyByHead = newDocument(head, DocumentVisibility.FAMILY, family);
+        familyByViewer = newDocument(viewer, DocumentVisibility.FAMILY, family);
+    }
+
+    @Test
+    void updateRules() {
+        UUID missing = UUID.randomUUID();
+
+        assertUpdate(owner, List.of(personal, shared), List.of(familyByHead, familyByViewer));
+        assertUpdate(head, List.of(familyByHead, familyByViewer), List.of(personal, shared));
+        assertUpdate(contributor, List.of(familyByHead, familyByViewer), List.of(personal, shared));
+        // A viewer may modify the family document they own, and no other.
+        assertUpdate(viewer, List.of(familyByViewer), List.of(familyByHead, personal, shared));
+        assertUpdate(outsider, List.of(), List.of(personal, shared, familyByHead, familyByViewer));
+
+        BulkUpdateDocumentSubjectResponse response = documentService.bulkUpdateDocumentSubject(
+                new BulkUpdateDocumentSubjectRequest(List.of(missing, personal.getPublicId()), null), owner);
+        assertEquals(List.of(personal.getPublicId()), response.updated());
+        assertEquals(List.of(new BulkUpdateDocumentSubjectResponse.Failure(missing, NOT_FOUND)), response.failed());
+    }
+
+    @Test
+    void deleteRules() {
+        Document contributorsOwn = newDocument(contributor, DocumentVisibility.PERSONAL, null);
+        UUID missing = UUID.randomUUID();
+
+        // Owning a family document is not enough to delete it; only the head may.
+        assertDelete(viewer, List.of(), List.of(familyByViewer));
+        assertDelete(contributor, List.of(contributorsOwn), List.of(familyByHead, familyByViewer, personal));
+        assertDelete(outsider, List.of(), List.of(personal, shared));
+
+        BulkDeleteDocumentsResponse mixed = documentService.bulkDeleteDocuments(new BulkDeleteDocumentsRequest(
+                List.of(familyByHead.getPublicId(), shared.getPublicId(), missing, familyByViewer.getPublicId())), head);
+        assertEquals(List.of(familyByHead.getPublicId(), familyByViewer.getPublicId()), mixed.deleted());
+        assertEquals(List.of(
+                new BulkDeleteDocumentsResponse.Failure(shared.getPublicId(), BulkDeleteDocumentsResponse.BulkFailureReason.PERMISSION_DENIED),
+                new BulkDeleteDocumentsResponse.Failure(missing, BulkDeleteDocumentsResponse.BulkFailureReason.NOT_FOUND)
+        ), mixed.failed());
+
+        assertDelete(owner, List.of(personal, shared), List.of());
+    }
+
+    @Test
+    void decisionsExplainEachRefusal() {
+        Document unconfigured = newDocument(owner, DocumentVisibility.FAMILY, null);
+        List<Document> docs = List.of(personal, shared, familyByHead, unconfigured);
+
+        assertEquals(Map.of(
+                personal.getPublicId(), DocumentAuthorizer.Decision.NOT_OWNER,
+                shared.getPublicId(), DocumentAuthorizer.Decision.NOT_SHARED_OWNER,
+                familyByHead.getPublicId(), DocumentAuthorizer.Decision.NOT_FAMILY_EDITOR,
+                unconfigured.getPublicId(), DocumentAuthorizer.Decision.FAMILY_NOT_CONFIGURED
+        ), documentAuthorizer.authorize(docs, viewer.getId(), DocumentAuthorizer.Action.UPDATE));
+        assertEquals(DocumentAuthorizer.Decision.NOT_FAMILY_HEAD,
+                documentAuthorizer.decide(familyByHead, contributor.getId(), DocumentAuthorizer.Action.DELETE));
+        assertEquals(DocumentAuthorizer.Decision.ALLOWED,
+                documentAuthorizer.decide(unconfigured, owner.getId(), DocumentAuthorizer.Action.UPDATE));
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithTheRequest() {
+        Family other = newFamily();
+        addMember(other, head, FamilyRole.HEAD);
+        familyMembershipIndex.verify(true);
+        List<UUID> few = List.of(personal.getPublicId(), familyByHead.getPublicId());
+        List<UUID> many = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            many.add(newDocument(owner, DocumentVisibility.PERSONAL, null).getPublicId());
+            many.add(newDocument(owner, DocumentVisibility.SHARED, null).getPublicId());
+            many.add(newDocument(head, DocumentVisibility.FAMILY, i % 2 == 0 ? family : other).getPublicId());
+        }
+
+        long forFew = statements(() -> documentService.bulkUpdateDocumentSubject(new BulkUpdateDocumentSubjectRequest(few, null), outsider));
+        long forMany = statements(() -> documentService.bulkUpdateDocumentSubject(new BulkUpdateDocumentSubjectRequest(many, null), outsider));
+        assertEquals(forFew, forMany);
+
+        forFew = statements(() -> documentService.bulkDeleteDocuments(new BulkDeleteDocumentsRequest(few), outsider));
+        forMany = statements(() -> documentService.bulkDeleteDocuments(new BulkDeleteDocumentsRequest(many), outsider));
+        assertEquals(forFew, forMany);
+    }
+
+    private void assertUpdate(User caller, List<Document> allowed, List<Document> denied) {
+        BulkUpdateDocumentSubjectResponse response = documentService.bulkUpdateDocumentSubject(
+                new BulkUpdateDocumentSubjectRequest(ids(allowed, denied), null), caller);
+        assertEquals(ids(allowed), response.updated());
+        assertEquals(ids(denied).stream().map(id -> new BulkUpdateDocumentSubjectResponse.Failure(id, PERMISSION_DENIED)).toList(),
+                response.failed());
+    }
+
+    private void assertDelete(User caller, List<Document> allowed, List<Document> denied) {
+        BulkDeleteDocumentsResponse response = documentService.bulkDeleteDocuments(
+                new BulkDeleteDocumentsRequest(ids(allowed, denied)), caller);
+        assertEquals(ids(allowed), response.deleted());
+        assertEquals(ids(denied).stream().map(id -> new BulkDeleteDocumentsResponse.Failure(
+                id, BulkDeleteDocumentsResponse.BulkFailureReason.PERMISSION_DENIED)).toList(), response.failed());
+    }
+
+    private long statements(Runnable request) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            request.run();
+            return statistics.getPrepareStatementCount();
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    @SafeVarargs
+    private static List<UUID> ids(List<Document>... groups) {
+        List<UUID> ids = new ArrayList<>();
+        for (List<Document> group : groups) {
+            group.forEach(doc -> ids.add(doc.getPublicId()));
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,53 @@
+package org.devaxiom.safedocs.service;
+
+import org.devaxiom.safedocs.dto.document.DocumentFacetsResponse;
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+import org.devaxiom.safedocs.model.Document;
+import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.repository.DocumentSpecifications;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DocumentFacetsTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private DocumentService documentService;
+
+    @Autowired
+    private DocumentAccessService documentAccessService;
+
+    @Test
+    void eachCategoryFacetCountsWhatItsFilterLists() {
+        User owner = newUser();
+        List<Long> ids = new ArrayList<>();
+        for (String category : List.of("Tax", "TAX", "Medical")) {
+            Document doc = newDocument(owner, DocumentVisibility.PERSONAL, null);
+            doc.setCategory(category);
+            ids.add(documentRepository.save(doc).getId());
+        }
+        // Written before the entity trimmed categories.
+        Document legacy = newDocument(owner, DocumentVisibility.PERSONAL, null);
+        jdbcTemplate.update("UPDATE document SET category = ' tax ' WHERE id = ?", legacy.getId());
+        ids.add(legacy.getId());
+        documentAccessService.refreshDocuments(ids);
+
+        DocumentFacetsResponse facets = documentService.facets(owner, DocumentVisibility.PERSONAL, null);
+
+        Map<String, Long> counts = facets.categories().stream().collect(Collectors.toMap(
+                c -> c.category().toLowerCase(), DocumentFacetsResponse.CategoryCount::count));
+        assertEquals(Map.of("tax", 3L, "medical", 1L), counts);
+        for (DocumentFacetsResponse.CategoryCount facet : facets.categories()) {
+            assertEquals(facet.count(), documentRepository.count(Specification.allOf(
+                    DocumentSpecifications.ownedBy(owner.getId()),
+                    DocumentSpecifications.categoryEqualsIgnoreCase(facet.category()))), facet.category());
+        }
+    }
+}
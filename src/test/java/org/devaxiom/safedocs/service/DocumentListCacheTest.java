@@ -0,0 +1,179 @@
+package org.devaxiom.safedocs.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.devaxiom.safedocs.config.DocumentListCacheProperties;
+import org.devaxiom.safedocs.dto.document.DocumentPageResponse;
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+import org.devaxiom.safedocs.event.DocumentListsChangedEvent;
+import org.devaxiom.safedocs.model.FamilyMember;
+import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.repository.FamilyMemberRepository;
+import org.devaxiom.safedocs.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DocumentListCacheTest {
+
+    private static final DocumentService.DocumentFilter PERSONAL = filter(DocumentVisibility.PERSONAL);
+    private static final DocumentService.DocumentFilter SHARED = filter(DocumentVisibility.SHARED);
+
+    private final FamilyMemberRepository familyMemberRepository = mock(FamilyMemberRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private DocumentListCache cache;
+
+    @BeforeEach
+    void setUp() {
+        // No datasource: start() is never called, so invalidation stays local and no NOTIFY is issued.
+        cache = cache(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void countsPageHitsAndMissesPerFilter() {
+        User user = user(1L);
+
+        get(user, PERSONAL);
+        get(user, PERSONAL);
+        // The user's entry is present, but this filter's page is not.
+        get(user, SHARED);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, pageGets("hit"));
+        assertEquals(2, pageGets("miss"));
+    }
+
+    @Test
+    void anExpiredPageIsAMissAndIsCountedOnce() throws InterruptedException {
+        cache = cache(Duration.ofMillis(50));
+        User user = user(1L);
+        get(user, PERSONAL);
+        Thread.sleep(100);
+
+        get(user, PERSONAL);
+
+        assertEquals(2, loads.get());
+        assertEquals(2, pageGets("miss"));
+        // Caffeine may report its own expiry from a maintenance task on another thread.
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (expirations() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, expirations());
+    }
+
+    @Test
+    void invalidationDropsOnlyTheNamedUsers() {
+        User first = user(1L);
+        User second = user(2L);
+        get(first, PERSONAL);
+        get(first, SHARED);
+        get(second, PERSONAL);
+
+        cache.onDocumentListsChanged(DocumentListsChangedEvent.builder().userId(1L).build());
+        get(first, PERSONAL);
+        get(first, SHARED);
+        get(second, PERSONAL);
+
+        assertEquals(5, loads.get());
+        assertEquals(1, meterRegistry.counter("document.list.cache.invalidations").count());
+    }
+
+    @Test
+    void invalidationResolvesFamilyMembersAndShareRecipients() {
+        User member = user(1L);
+        User recipient = user(2L);
+        User bystander = user(3L);
+        when(familyMemberRepository.findByFamilyIdAndActiveTrue(10L))
+                .thenReturn(List.of(FamilyMember.builder().user(member).build()));
+        when(userRepository.findByEmailIn(Set.of("r@safedocs.test"))).thenReturn(List.of(recipient));
+        get(member, PERSONAL);
+        get(recipient, PERSONAL);
+        get(bystander, PERSONAL);
+
+        cache.onDocumentListsChanged(DocumentListsChangedEvent.builder()
+                .familyId(10L)
+                .recipientEmail("r@safedocs.test")
+                .build());
+        get(member, PERSONAL);
+        get(recipient, PERSONAL);
+        get(bystander, PERSONAL);
+
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void aLoadOverlappingAnInvalidationIsNotCached() {
+        User user = user(1L);
+        // The page is read before the write commits, so what it loaded may already be stale.
+        DocumentPageResponse stale = cache.get(user, PERSONAL, () -> "W/\"stale\"", null, () -> {
+            cache.onDocumentListsChanged(DocumentListsChangedEvent.builder().userId(1L).build());
+            return page();
+        }).page();
+
+        DocumentService.ListedPage next = get(user, PERSONAL);
+
+        assertEquals(page(), stale);
+        assertEquals("W/\"" + 1 + "\"", next.etag());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void aMatchingEtagSkipsTheLoad() {
+        User user = user(1L);
+
+        DocumentService.ListedPage listed = cache.get(user, PERSONAL, () -> "W/\"x\"", "W/\"x\""::equals, this::load);
+
+        assertEquals("W/\"x\"", listed.etag());
+        assertNull(listed.page());
+        assertEquals(0, loads.get());
+    }
+
+    private DocumentListCache cache(Duration ttl) {
+        DocumentListCacheProperties properties = new DocumentListCacheProperties();
+        properties.setTtl(ttl);
+        return new DocumentListCache(properties, meterRegistry, familyMemberRepository, userRepository, null, null);
+    }
+
+    private DocumentService.ListedPage get(User user, DocumentService.DocumentFilter filter) {
+        return cache.get(user, filter, () -> "W/\"" + (loads.get() + 1) + "\"", null, this::load);
+    }
+
+    private DocumentPageResponse load() {
+        loads.incrementAndGet();
+        return page();
+    }
+
+    private double pageGets(String result) {
+        return meterRegistry.counter("document.list.cache.page.gets", "result", result).count();
+    }
+
+    private double expirations() {
+        return meterRegistry.counter("document.list.cache.page.expirations").count();
+    }
+
+    private static DocumentPageResponse page() {
+        return new DocumentPageResponse(List.of(), 0, 20, 0);
+    }
+
+    private static User user(long id) {
+        User user = User.builder().email("u" + id + "@safedocs.test").build();
+        user.setId(id);
+        return user;
+    }
+
+    private static DocumentService.DocumentFilter filter(DocumentVisibility visibility) {
+        return new DocumentService.DocumentFilter(visibility, null, null, 0, 20, null, null, false,
+                null, null, null, null, null);
+    }
+}
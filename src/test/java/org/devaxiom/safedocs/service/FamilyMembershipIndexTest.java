@@ -0,0 +1,155 @@
+package org.devaxiom.safedocs.service;
+
+import org.devaxiom.safedocs.config.MembershipIndexProperties;
+import org.devaxiom.safedocs.enums.FamilyRole;
+import org.devaxiom.safedocs.repository.FamilyMemberRepository;
+import org.devaxiom.safedocs.repository.MembershipRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FamilyMembershipIndexTest {
+
+    private final FamilyMemberRepository repository = mock(FamilyMemberRepository.class);
+    private final List<MembershipRow> rows = new ArrayList<>();
+    private FamilyMembershipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(repository.findActiveMembershipRows()).thenAnswer(inv -> List.copyOf(rows));
+        // No datasource: start() is never called, so writes stay local and no NOTIFY is issued.
+        index = new FamilyMembershipIndex(repository, new MembershipIndexProperties(), null, null);
+        rows.add(new MembershipRow(1L, 10L, FamilyRole.HEAD));
+        rows.add(new MembershipRow(1L, 20L, FamilyRole.VIEWER));
+        rows.add(new MembershipRow(2L, 10L, FamilyRole.CONTRIBUTOR));
+        index.load();
+    }
+
+    @Test
+    void loadsMembershipsSortedByFamily() {
+        assertEquals(List.of(10L, 20L), index.familyIds(1L));
+        assertEquals(FamilyRole.HEAD, index.role(10L, 1L));
+        assertTrue(index.hasRole(10L, 2L, Set.of(FamilyRole.CONTRIBUTOR, FamilyRole.HEAD)));
+        assertFalse(index.isMember(20L, 2L));
+        assertEquals(List.of(), index.familyIds(3L));
+    }
+
+    @Test
+    void grantAddsOrChangesARole() {
+        index.grant(15L, 1L, FamilyRole.CONTRIBUTOR);
+        index.grant(20L, 1L, FamilyRole.HEAD);
+        index.grant(10L, 3L, FamilyRole.VIEWER);
+
+        assertEquals(List.of(10L, 15L, 20L), index.familyIds(1L));
+        assertEquals(FamilyRole.HEAD, index.role(20L, 1L));
+        assertEquals(FamilyRole.VIEWER, index.role(10L, 3L));
+    }
+
+    @Test
+    void revokeRemovesOneMembership() {
+        index.revoke(10L, 1L);
+        index.revoke(10L, 2L);
+        index.revoke(99L, 1L);
+
+        assertEquals(List.of(20L), index.familyIds(1L));
+        assertNull(index.role(10L, 2L));
+    }
+
+    @Test
+    void revokeFamilyRemovesEveryMember() {
+        index.revokeFamily(10L);
+
+        assertEquals(List.of(20L), index.familyIds(1L));
+        assertFalse(index.isMember(10L, 2L));
+    }
+
+    @Test
+    void verifyReportsNoDriftWhenInSync() {
+        FamilyMembershipIndex.VerificationReport report = index.verify(false);
+
+        assertEquals(new FamilyMembershipIndex.VerificationReport(2, 3, 0, 0, false), report);
+    }
+
+    @Test
+    void verifyDetectsDriftAndRepairsOnlyWhenAsked() {
+        // Changes that reached the database without going through the index.
+        rows.remove(new MembershipRow(2L, 10L, FamilyRole.CONTRIBUTOR));
+        rows.add(new MembershipRow(3L, 30L, FamilyRole.HEAD));
+        rows.set(0, new MembershipRow(1L, 10L, FamilyRole.VIEWER));
+
+        FamilyMembershipIndex.VerificationReport dryRun = index.verify(false);
+        assertEquals(2, dryRun.missing());
+        assertEquals(2, dryRun.stale());
+        assertFalse(dryRun.repaired());
+        assertTrue(index.isMember(10L, 2L));
+
+        FamilyMembershipIndex.VerificationReport repair = index.verify(true);
+        assertTrue(repair.repaired());
+        assertFalse(index.isMember(10L, 2L));
+        assertEquals(FamilyRole.HEAD, index.role(30L, 3L));
+        assertEquals(FamilyRole.VIEWER, index.role(10L, 1L));
+        assertEquals(new FamilyMembershipIndex.VerificationReport(2, 3, 0, 0, false), index.verify(false));
+    }
+
+    @Test
+    void repairKeepsWritesAppliedWhileTheSnapshotWasRead() {
+        // The snapshot is read before these commits; their after-commit writes land before the swap.
+        when(repository.findActiveMembershipRows()).thenAnswer(inv -> {
+            List<MembershipRow> stale = List.copyOf(rows);
+            index.grant(40L, 2L, FamilyRole.HEAD);
+            index.revokeFamily(20L);
+            return stale;
+        });
+
+        index.verify(true);
+
+        assertEquals(List.of(10L, 40L), index.familyIds(2L));
+        assertEquals(List.of(10L), index.familyIds(1L));
+    }
+
+    @Test
+    void notificationReReadsTheUser() {
+        when(repository.findActiveMembershipRowsByUserId(2L)).thenReturn(List.of(new MembershipRow(2L, 30L, FamilyRole.HEAD)));
+
+        index.apply("u:2");
+        index.apply("u:3");
+
+        assertEquals(List.of(30L), index.familyIds(2L));
+        assertEquals(List.of(), index.familyIds(3L));
+    }
+
+    @Test
+    void aLocalWriteDuringTheReReadWins() {
+        // The re-read runs outside the write lock; an after-commit write lands before it is applied.
+        when(repository.findActiveMembershipRowsByUserId(2L)).thenAnswer(inv -> {
+            index.grant(40L, 2L, FamilyRole.HEAD);
+            return List.of(new MembershipRow(2L, 10L, FamilyRole.CONTRIBUTOR));
+        });
+
+        index.apply("u:2");
+
+        assertEquals(List.of(10L, 40L), index.familyIds(2L));
+    }
+
+    @Test
+    void aFamilyDroppedDuringTheReReadStaysDropped() {
+        when(repository.findActiveMembershipRowsByUserId(2L)).thenAnswer(inv -> {
+            index.revokeFamily(10L);
+            return List.of(new MembershipRow(2L, 10L, FamilyRole.CONTRIBUTOR), new MembershipRow(2L, 50L, FamilyRole.VIEWER));
+        });
+
+        index.apply("u:2");
+
+        assertEquals(List.of(50L), index.familyIds(2L));
+    }
+}
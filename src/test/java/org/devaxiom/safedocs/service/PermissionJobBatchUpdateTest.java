@@ -0,0 +1,97 @@
+package org.devaxiom.safedocs.service;
+
+import org.devaxiom.safedocs.dto.permission.PermissionJobBatchUpdateItem;
+import org.devaxiom.safedocs.dto.permission.PermissionJobBatchUpdateResponse;
+import org.devaxiom.safedocs.dto.permission.PermissionJobResponse;
+import org.devaxiom.safedocs.dto.permission.PermissionJobUpdateResult;
+import org.devaxiom.safedocs.enums.PermissionJobAction;
+import org.devaxiom.safedocs.enums.PermissionJobStatus;
+import org.devaxiom.safedocs.exception.BadRequestException;
+import org.devaxiom.safedocs.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PermissionJobBatchUpdateTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private PermissionJobService permissionJobService;
+
+    @Test
+    void reportsEachItemAndAppliesOnlyTheAcceptedOnes() {
+        User owner = newUser();
+        User other = newUser();
+        UUID document = UUID.randomUUID();
+        permissionJobService.enqueueAll(List.of(
+                spec(owner, document, "a@safedocs.test", PermissionJobAction.GRANT),
+                spec(owner, document, "b@safedocs.test", PermissionJobAction.GRANT),
+                spec(owner, document, "c@safedocs.test", PermissionJobAction.GRANT),
+                spec(owner, document, "d@safedocs.test", PermissionJobAction.GRANT),
+                spec(other, document, "e@safedocs.test", PermissionJobAction.GRANT)));
+        List<PermissionJobResponse> claimed = permissionJobService.claimJobs(owner, 2, "w1").jobs();
+        UUID leasedElsewhere = claimed.get(0).jobId();
+        UUID leased = claimed.get(1).jobId();
+        List<UUID> pending = permissionJobService.listJobs(owner, PermissionJobStatus.PENDING).stream()
+                .map(PermissionJobResponse::jobId).toList();
+        UUID foreign = permissionJobService.listJobs(other, PermissionJobStatus.PENDING).get(0).jobId();
+        UUID missing = UUID.randomUUID();
+
+        PermissionJobBatchUpdateResponse response = permissionJobService.updateJobs(List.of(
+                item(pending.get(0), PermissionJobStatus.DONE, null),
+                item(foreign, PermissionJobStatus.DONE, null),
+                item(missing, PermissionJobStatus.DONE, null),
+                item(pending.get(0), PermissionJobStatus.FAILED, null),
+                item(leasedElsewhere, PermissionJobStatus.DONE, "w2"),
+                item(pending.get(1), PermissionJobStatus.PENDING, null),
+                new PermissionJobBatchUpdateItem(leased, PermissionJobStatus.FAILED, 3, " boom ", "w1")), owner);
+
+        assertEquals(2, response.updated());
+        assertEquals(List.of(
+                new PermissionJobUpdateResult(pending.get(0), true, PermissionJobStatus.DONE, null),
+                new PermissionJobUpdateResult(foreign, false, null, "Job not found"),
+                new PermissionJobUpdateResult(missing, false, null, "Job not found"),
+                new PermissionJobUpdateResult(pending.get(0), false, null, "Duplicate jobId in request"),
+                new PermissionJobUpdateResult(leasedElsewhere, false, PermissionJobStatus.LEASED, "Job is leased by another worker"),
+                new PermissionJobUpdateResult(pending.get(1), false, PermissionJobStatus.PENDING, "Job status must be DONE or FAILED"),
+                new PermissionJobUpdateResult(leased, true, PermissionJobStatus.FAILED, null)
+        ), response.results());
+
+        assertEquals("DONE", status(pending.get(0)));
+        assertEquals("PENDING", status(pending.get(1)));
+        assertEquals("LEASED", status(leasedElsewhere));
+        assertEquals("PENDING", status(foreign));
+        Map<String, Object> failed = jdbcTemplate.queryForMap(
+                "SELECT status, attempts, last_error, lease_owner FROM permission_job WHERE job_id = ?", leased);
+        assertEquals("FAILED", failed.get("status"));
+        assertEquals(3, failed.get("attempts"));
+        assertEquals("boom", failed.get("last_error"));
+        assertNull(failed.get("lease_owner"));
+    }
+
+    @Test
+    void rejectsBatchesOverTheLimit() {
+        User owner = newUser();
+        List<PermissionJobBatchUpdateItem> items = new ArrayList<>();
+        for (int i = 0; i < 501; i++) {
+            items.add(item(UUID.randomUUID(), PermissionJobStatus.DONE, null));
+        }
+
+        assertThrows(BadRequestException.class, () -> permissionJobService.updateJobs(items, owner));
+    }
+
+    private String status(UUID jobId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM permission_job WHERE job_id = ?", String.class, jobId);
+    }
+
+    private static PermissionJobBatchUpdateItem item(UUID jobId, PermissionJobStatus status, String leaseOwner) {
+        return new PermissionJobBatchUpdateItem(jobId, status, null, null, leaseOwner);
+    }
+}
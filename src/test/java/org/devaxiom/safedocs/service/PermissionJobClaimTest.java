@@ -0,0 +1,118 @@
+package org.devaxiom.safedocs.service;
+
+import org.devaxiom.safedocs.dto.permission.PermissionJobClaimResponse;
+import org.devaxiom.safedocs.dto.permission.PermissionJobFeedResponse;
+import org.devaxiom.safedocs.dto.permission.PermissionJobResponse;
+import org.devaxiom.safedocs.enums.PermissionJobAction;
+import org.devaxiom.safedocs.exception.BadRequestException;
+import org.devaxiom.safedocs.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PermissionJobClaimTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private PermissionJobService permissionJobService;
+
+    @Autowired
+    private PermissionJobFeed permissionJobFeed;
+
+    @Test
+    void concurrentClaimsAreDisjoint() throws Exception {
+        User owner = newUser();
+        enqueue(owner, 300);
+        Set<UUID> claimed = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService workers = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<?>> runs = new ArrayList<>();
+            for (int w = 0; w < 6; w++) {
+                String worker = "worker-" + w;
+                runs.add(workers.submit(() -> {
+                    start.await();
+                    while (true) {
+                        List<PermissionJobResponse> jobs = permissionJobService.claimJobs(owner, 7, worker).jobs();
+                        if (jobs.isEmpty()) return null;
+                        jobs.forEach(job -> {
+                            if (!claimed.add(job.jobId())) duplicates.incrementAndGet();
+                        });
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> run : runs) run.get();
+        } finally {
+            workers.shutdownNow();
+        }
+
+        assertEquals(0, duplicates.get());
+        assertEquals(300, claimed.size());
+        assertEquals(300, countJobs(owner, "LEASED"));
+    }
+
+    @Test
+    void leasedJobsAreNotClaimedAgain() {
+        User owner = newUser();
+        enqueue(owner, 5);
+
+        PermissionJobClaimResponse first = permissionJobService.claimJobs(owner, 3, "a");
+        PermissionJobClaimResponse second = permissionJobService.claimJobs(owner, 10, null);
+
+        assertEquals(3, first.jobs().size());
+        assertEquals(2, second.jobs().size());
+        assertTrue(second.leaseOwner() != null && !second.leaseOwner().isBlank());
+        assertTrue(permissionJobService.claimJobs(owner, 10, "c").jobs().isEmpty());
+        assertThrows(BadRequestException.class, () -> permissionJobService.claimJobs(owner, 0, "a"));
+    }
+
+    @Test
+    void reaperReturnsExpiredLeasesToTheFeed() {
+        User owner = newUser();
+        enqueue(owner, 3);
+        long cursor = permissionJobFeed.poll(owner.getId(), 0, Duration.ZERO).join().cursor();
+        List<PermissionJobResponse> jobs = permissionJobService.claimJobs(owner, 3, "a").jobs();
+        UUID kept = jobs.get(0).jobId();
+        jdbcTemplate.update("UPDATE permission_job SET lease_expires_at = ? WHERE owner_user_id = ? AND job_id <> ?",
+                LocalDateTime.now().minusMinutes(1), owner.getId(), kept);
+
+        permissionJobService.releaseExpiredLeases();
+
+        assertEquals(2, countJobs(owner, "PENDING"));
+        assertEquals(1, countJobs(owner, "LEASED"));
+        assertNull(jdbcTemplate.queryForObject("SELECT MAX(lease_owner) FROM permission_job "
+                + "WHERE owner_user_id = ? AND status = 'PENDING'", String.class, owner.getId()));
+        // Re-pended jobs get new feed positions, so a client that already read past them sees them again.
+        PermissionJobFeedResponse feed = permissionJobFeed.poll(owner.getId(), cursor, Duration.ZERO).join();
+        assertEquals(2, feed.jobs().size());
+        assertTrue(feed.cursor() > cursor);
+        assertEquals(2, permissionJobService.claimJobs(owner, 10, "b").jobs().size());
+    }
+
+    private void enqueue(User owner, int jobs) {
+        UUID document = UUID.randomUUID();
+        List<PermissionJobService.JobSpec> specs = new ArrayList<>();
+        for (int i = 0; i < jobs; i++) {
+            specs.add(spec(owner, document, "reader" + i + "@safedocs.test", PermissionJobAction.GRANT));
+        }
+        assertEquals(jobs, permissionJobService.enqueueAll(specs));
+    }
+}
@@ -0,0 +1,111 @@
+package org.devaxiom.safedocs.service;
+
+import org.devaxiom.safedocs.dto.permission.PermissionJobBatchUpdateItem;
+import org.devaxiom.safedocs.enums.PermissionJobAction;
+import org.devaxiom.safedocs.enums.PermissionJobStatus;
+import org.devaxiom.safedocs.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.devaxiom.safedocs.enums.PermissionJobAction.GRANT;
+import static org.devaxiom.safedocs.enums.PermissionJobAction.REVOKE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PermissionJobCoalescingTest extends PostgresIntegrationTest {
+
+    private static final String TARGET = "reader@safedocs.test";
+
+    @Autowired
+    private PermissionJobService permissionJobService;
+
+    @Test
+    void grantRevokeGrantLeavesOnePendingGrant() {
+        User owner = newUser();
+        UUID document = UUID.randomUUID();
+
+        enqueue(owner, document, GRANT);
+        enqueue(owner, document, REVOKE);
+        enqueue(owner, document, GRANT);
+
+        assertEquals(List.of("GRANT:PENDING", "REVOKE:CANCELLED"), jobs(owner));
+    }
+
+    @Test
+    void theLastActionForATargetWinsWithinOneCall() {
+        User owner = newUser();
+        UUID document = UUID.randomUUID();
+
+        int created = permissionJobService.enqueueAll(List.of(
+                spec(owner, document, TARGET, GRANT),
+                spec(owner, document, TARGET.toUpperCase(), REVOKE)));
+
+        assertEquals(1, created);
+        assertEquals(List.of("REVOKE:PENDING"), jobs(owner));
+    }
+
+    @Test
+    void aFinishedJobIsReplaced() {
+        User owner = newUser();
+        UUID document = UUID.randomUUID();
+        enqueue(owner, document, GRANT);
+        UUID done = permissionJobService.listJobs(owner, PermissionJobStatus.PENDING).get(0).jobId();
+        permissionJobService.updateJobs(List.of(
+                new PermissionJobBatchUpdateItem(done, PermissionJobStatus.DONE, null, null, null)), owner);
+
+        assertEquals(1, enqueue(owner, document, GRANT));
+
+        assertEquals(List.of("GRANT:PENDING"), jobs(owner));
+    }
+
+    @Test
+    void aLeasedJobIsNotCancelled() {
+        User owner = newUser();
+        UUID document = UUID.randomUUID();
+        enqueue(owner, document, GRANT);
+        permissionJobService.claimJobs(owner, 1, "w1");
+
+        enqueue(owner, document, REVOKE);
+
+        assertEquals(List.of("GRANT:LEASED", "REVOKE:PENDING"), jobs(owner));
+    }
+
+    @Test
+    void compactionCancelsTheEarlierOfOpposingPendingJobs() {
+        jdbcTemplate.update("DELETE FROM permission_job");
+        User owner = newUser();
+        UUID superseded = UUID.randomUUID();
+        UUID untouched = UUID.randomUUID();
+        // A queue built before enqueueing coalesced: GRANT then REVOKE, both still PENDING.
+        enqueue(owner, superseded, GRANT);
+        enqueue(owner, superseded, REVOKE);
+        jdbcTemplate.update("UPDATE permission_job SET status = 'PENDING', last_error = NULL WHERE owner_user_id = ?", owner.getId());
+        enqueue(owner, untouched, GRANT);
+
+        PermissionJobService.CompactionReport dryRun = permissionJobService.compactPending(true);
+        assertEquals(new PermissionJobService.CompactionReport(1, false), dryRun);
+        assertEquals(3, countJobs(owner, "PENDING"));
+
+        PermissionJobService.CompactionReport applied = permissionJobService.compactPending(false);
+        assertEquals(new PermissionJobService.CompactionReport(1, true), applied);
+        assertEquals(List.of("GRANT:CANCELLED", "REVOKE:PENDING"), jobs(owner, superseded));
+        assertEquals(List.of("GRANT:PENDING"), jobs(owner, untouched));
+        assertEquals(new PermissionJobService.CompactionReport(0, false), permissionJobService.compactPending(true));
+    }
+
+    private int enqueue(User owner, UUID document, PermissionJobAction action) {
+        return permissionJobService.enqueueAll(List.of(spec(owner, document, TARGET, action)));
+    }
+
+    private List<String> jobs(User owner) {
+        return jdbcTemplate.queryForList("SELECT action || ':' || status FROM permission_job "
+                + "WHERE owner_user_id = ? ORDER BY action", String.class, owner.getId());
+    }
+
+    private List<String> jobs(User owner, UUID document) {
+        return jdbcTemplate.queryForList("SELECT action || ':' || status FROM permission_job "
+                + "WHERE owner_user_id = ? AND document_public_id = ? ORDER BY action", String.class, owner.getId(), document);
+    }
+}
@@ -0,0 +1,67 @@
+package org.devaxiom.safedocs.service;
+
+import org.devaxiom.safedocs.enums.PermissionJobAction;
+import org.devaxiom.safedocs.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PermissionJobEnqueueTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private PermissionJobService permissionJobService;
+
+    @Test
+    void insertsEveryChunkOfAMultiRowBatch() {
+        User owner = newUser();
+        UUID document = UUID.randomUUID();
+        List<PermissionJobService.JobSpec> specs = new ArrayList<>();
+        for (int i = 0; i < 1_234; i++) {
+            specs.add(spec(owner, document, "reader" + i + "@safedocs.test", PermissionJobAction.GRANT));
+        }
+
+        assertEquals(1_234, permissionJobService.enqueueAll(specs));
+
+        assertEquals(1_234, countJobs(owner, "PENDING"));
+        Integer positions = jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT feed_seq) FROM permission_job WHERE owner_user_id = ?", Integer.class, owner.getId());
+        assertEquals(1_234, positions);
+    }
+
+    @Test
+    void skipsJobsAlreadyQueuedForTheSameTarget() {
+        User owner = newUser();
+        UUID document = UUID.randomUUID();
+        assertEquals(2, permissionJobService.enqueueAll(List.of(
+                spec(owner, document, "a@safedocs.test", PermissionJobAction.GRANT),
+                spec(owner, document, "b@safedocs.test", PermissionJobAction.GRANT))));
+
+        int created = permissionJobService.enqueueAll(List.of(
+                spec(owner, document, " A@SafeDocs.test ", PermissionJobAction.GRANT),
+                spec(owner, document, "b@safedocs.test", PermissionJobAction.GRANT),
+                spec(owner, document, "c@safedocs.test", PermissionJobAction.GRANT)));
+
+        assertEquals(1, created);
+        assertEquals(3, countJobs(owner, "PENDING"));
+    }
+
+    @Test
+    void dropsBlankTargetsAndTheOwnerThemselves() {
+        User owner = newUser();
+        UUID document = UUID.randomUUID();
+
+        int created = permissionJobService.enqueueAll(List.of(
+                spec(owner, document, owner.getEmail().toUpperCase(), PermissionJobAction.GRANT),
+                spec(owner, document, "  ", PermissionJobAction.GRANT),
+                spec(owner, document, "c@safedocs.test", PermissionJobAction.GRANT),
+                spec(owner, document, "C@safedocs.test", PermissionJobAction.GRANT)));
+
+        assertEquals(1, created);
+        assertEquals(1, countJobs(owner, "PENDING"));
+    }
+}
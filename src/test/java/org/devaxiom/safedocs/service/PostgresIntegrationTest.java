@@ -0,0 +1,101 @@
+package org.devaxiom.safedocs.service;
+
+import org.devaxiom.safedocs.enums.DocumentVisibility;
+import org.devaxiom.safedocs.enums.FamilyRole;
+import org.devaxiom.safedocs.enums.PermissionJobAction;
+import org.devaxiom.safedocs.model.Document;
+import org.devaxiom.safedocs.model.Family;
+import org.devaxiom.safedocs.model.FamilyMember;
+import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.repository.DocumentRepository;
+import org.devaxiom.safedocs.repository.FamilyMemberRepository;
+import org.devaxiom.safedocs.repository.FamilyRepository;
+import org.devaxiom.safedocs.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+/**
+ * Base for tests of behaviour that only PostgreSQL has (SKIP LOCKED, multi-row ON CONFLICT, row-value IN,
+ * {@code = ANY(?)}). Skipped when Docker is not available. The container is started once and shared by every
+ * subclass, since they also share one cached application context.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.jpa.hibernate.ddl-auto=update",
+        "spring.jpa.defer-datasource-initialization=true",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.platform=postgresql",
+        // Tests run the reaper themselves.
+        "safedocs.permission-jobs.reap-interval=PT1H"
+})
+abstract class PostgresIntegrationTest {
+
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    static {
+        POSTGRES.start();
+    }
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected DocumentRepository documentRepository;
+
+    @Autowired
+    protected FamilyRepository familyRepository;
+
+    @Autowired
+    protected FamilyMemberRepository familyMemberRepository;
+
+    protected User newUser() {
+        return userRepository.save(User.builder()
+                .email("it-" + UUID.randomUUID() + "@safedocs.test")
+                .passwordHash("x")
+                .firstName("Test")
+                .lastName("User")
+                .build());
+    }
+
+    protected Family newFamily() {
+        return familyRepository.save(Family.builder().name("Family " + UUID.randomUUID()).build());
+    }
+
+    // Writes the row only; the membership index is not told.
+    protected void addMember(Family family, User user, FamilyRole role) {
+        familyMemberRepository.save(FamilyMember.builder().family(family).user(user).role(role).active(true).build());
+    }
+
+    protected Document newDocument(User owner, DocumentVisibility visibility, Family family) {
+        return documentRepository.save(Document.builder()
+                .owner(owner)
+                .family(family)
+                .visibility(visibility)
+                .title("Doc " + UUID.randomUUID())
+                .fileName("doc.pdf")
+                .driveFileId("drive-" + UUID.randomUUID())
+                .build());
+    }
+
+    protected static PermissionJobService.JobSpec spec(User owner, UUID document, String target, PermissionJobAction action) {
+        return new PermissionJobService.JobSpec(document, "drive-" + document, owner.getId(), owner.getEmail(),
+                target, action, null);
+    }
+
+    protected int countJobs(User owner, String status) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM permission_job WHERE owner_user_id = ? AND status = ?", Integer.class, owner.getId(), status);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,110 @@
+package org.devaxiom.safedocs.service;
+
+import org.devaxiom.safedocs.exception.InvalidTokenException;
+import org.devaxiom.safedocs.exception.UnauthorizedException;
+import org.devaxiom.safedocs.model.User;
+import org.devaxiom.safedocs.security.JwtAuthenticationProvider;
+import org.devaxiom.safedocs.security.UserAuthStateCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A cached auth state must never let a token through once the change that revokes it has committed. Each test
+ * warms the cache first, so a missed eviction shows up as the old token still being accepted.
+ */
+class UserAuthStateCacheTest extends PostgresIntegrationTest {
+
+    private static final String DEV_SECRET = "dev-secret";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JwtAuthenticationProvider jwtAuthenticationProvider;
+
+    @Autowired
+    private UserAuthStateCache userAuthStateCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void logoutRejectsTheOldTokenRightAfterCommit() {
+        User user = newUser();
+        String token = login(user);
+        authenticate(token);
+
+        authService.revokeTokens(user.getId());
+
+        assertThrows(InvalidTokenException.class, () -> authenticate(token));
+        assertDoesNotThrow(() -> authenticate(login(user)));
+    }
+
+    @Test
+    void disablingAUserEvictsTheEntry() {
+        User user = newUser();
+        String token = login(user);
+        authenticate(token);
+
+        user.setIsActive(false);
+        userRepository.save(user);
+
+        assertThrows(UnauthorizedException.class, () -> authenticate(token));
+    }
+
+    @Test
+    void deletingAUserEvictsTheEntry() {
+        User user = newUser();
+        String token = login(user);
+        authenticate(token);
+
+        userRepository.delete(user);
+
+        assertThrows(UnauthorizedException.class, () -> authenticate(token));
+    }
+
+    @Test
+    void aRolledBackRevocationDoesNotEvict() {
+        User user = newUser();
+        String token = login(user);
+        authenticate(token);
+        long cached = userAuthStateCache.get(user.getId()).tokenVersion();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            authService.revokeTokens(user.getId());
+            status.setRollbackOnly();
+        });
+        assertDoesNotThrow(() -> authenticate(token));
+
+        // Written behind the cache's back: still reading the old version means the entry was never dropped.
+        jdbcTemplate.update("UPDATE app_user SET token_version = token_version + 1 WHERE id = ?", user.getId());
+        assertEquals(cached, userAuthStateCache.get(user.getId()).tokenVersion());
+    }
+
+    private String login(User user) {
+        String token = authService.devLogin(user.getEmail(), DEV_SECRET, true, DEV_SECRET).accessToken();
+        SecurityContextHolder.clearContext();
+        return token;
+    }
+
+    private void authenticate(String token) {
+        try {
+            jwtAuthenticationProvider.authenticateToken(token, null);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.devaxiom.safedocs.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.devaxiom.safedocs.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LocalRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(42 * SECOND);
+    private final LocalRateLimiter limiter =
+            new LocalRateLimiter(new RateLimitProperties(), new SimpleMeterRegistry(), clock::get);
+
+    @Test
+    void allowsTheBurstThenDeniesUntilOneTokenRefills() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("search:1", SECOND, 3), "request " + i);
+        }
+        assertEquals(SECOND, limiter.tryAcquire("search:1", SECOND, 3));
+
+        clock.addAndGet(SECOND / 4);
+        assertEquals(3 * SECOND / 4, limiter.tryAcquire("search:1", SECOND, 3));
+
+        clock.addAndGet(3 * SECOND / 4);
+        assertEquals(0, limiter.tryAcquire("search:1", SECOND, 3));
+        assertEquals(SECOND, limiter.tryAcquire("search:1", SECOND, 3));
+    }
+
+    @Test
+    void deniedRequestsDoNotConsumeTokens() {
+        assertEquals(0, limiter.tryAcquire("search:1", SECOND, 1));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(SECOND, limiter.tryAcquire("search:1", SECOND, 1));
+        }
+        clock.addAndGet(SECOND);
+        assertEquals(0, limiter.tryAcquire("search:1", SECOND, 1));
+    }
+
+    @Test
+    void anIdleBucketRefillsOnlyUpToCapacity() {
+        assertEquals(0, limiter.tryAcquire("search:1", SECOND, 2));
+        clock.addAndGet(60 * SECOND);
+
+        assertEquals(0, limiter.tryAcquire("search:1", SECOND, 2));
+        assertEquals(0, limiter.tryAcquire("search:1", SECOND, 2));
+        assertEquals(SECOND, limiter.tryAcquire("search:1", SECOND, 2));
+    }
+
+    @Test
+    void keysHaveSeparateBuckets() {
+        assertEquals(0, limiter.tryAcquire("search:1", SECOND, 1));
+        assertEquals(0, limiter.tryAcquire("search:2", SECOND, 1));
+        assertEquals(0, limiter.tryAcquire("reconcile:1", SECOND, 1));
+        assertEquals(SECOND, limiter.tryAcquire("search:1", SECOND, 1));
+    }
+}
@@ -0,0 +1,111 @@
+package org.devaxiom.safedocs.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.devaxiom.safedocs.config.RateLimitProperties;
+import org.devaxiom.safedocs.dto.base.BaseResponseEntity;
+import org.devaxiom.safedocs.exception.GlobalExceptionHandler;
+import org.devaxiom.safedocs.exception.RateLimitExceededException;
+import org.devaxiom.safedocs.security.UserDetailsImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimitInterceptorTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong clock = new AtomicLong(SECOND);
+    private final RateLimitProperties properties = new RateLimitProperties();
+    private RateLimitInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        properties.getRoutes().put("document-search", route("GET", "/api/documents", "search", 2, 0.5));
+        properties.getRoutes().put("document-reconcile", route("POST", "/api/documents/reconcile", null, 1, 3));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        interceptor = new RateLimitInterceptor(properties, new LocalRateLimiter(properties, registry, clock::get), registry);
+        UserDetailsImpl user = new UserDetailsImpl(7L, "user@safedocs.test", null, "x", true, false, 0L);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, List.of()));
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void deniesOnceTheBurstIsSpentAndReportsTheWait() {
+        assertTrue(handle("GET", "/api/documents", "search"));
+        assertTrue(handle("GET", "/api/documents", "search"));
+
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+                () -> handle("GET", "/api/documents", "search"));
+        assertEquals(Duration.ofSeconds(2), ex.getRetryAfter());
+        assertEquals("2", retryAfter(ex));
+    }
+
+    @Test
+    void retryAfterRoundsUpToWholeSeconds() {
+        assertTrue(handle("POST", "/api/documents/reconcile", null));
+
+        RateLimitExceededException ex = assertThrows(RateLimitExceededException.class,
+                () -> handle("POST", "/api/documents/reconcile", null));
+        assertEquals(333_333_333L, ex.getRetryAfter().toNanos());
+        assertEquals("1", retryAfter(ex));
+
+        clock.addAndGet(SECOND / 3);
+        assertTrue(handle("POST", "/api/documents/reconcile", null));
+    }
+
+    @Test
+    void ignoresRequestsOutsideTheConfiguredRoutes() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(handle("GET", "/api/documents", null), "no search param");
+            assertTrue(handle("POST", "/api/documents", "search"), "other method");
+        }
+        SecurityContextHolder.clearContext();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(handle("POST", "/api/documents/reconcile", null), "anonymous");
+        }
+    }
+
+    private boolean handle(String method, String pattern, String param) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        if (param != null) request.setParameter(param, "tax");
+        return interceptor.preHandle(request, new MockHttpServletResponse(), new Object());
+    }
+
+    private static String retryAfter(RateLimitExceededException ex) {
+        BaseResponseEntity<?> response = new GlobalExceptionHandler().handleRateLimit(ex);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        return response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+    }
+
+    private static RateLimitProperties.Route route(String method, String pattern, String param, long capacity,
+                                                   double refillPerSecond) {
+        RateLimitProperties.Route route = new RateLimitProperties.Route();
+        route.setMethod(method);
+        route.setPattern(pattern);
+        route.setParam(param);
+        route.setCapacity(capacity);
+        route.setRefillPerSecond(refillPerSecond);
+        return route;
+    }
+}